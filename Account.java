@@ -1,9 +1,9 @@
 // --- 3. model/Account.java ---
 package model;
 
+import util.IdGenerator;
 import java.math.BigDecimal;
 import java.util.Objects;
-import java.util.UUID;
 
 // The Account class represents a bank account
 public class Account {
@@ -12,29 +12,44 @@ public class Account {
     private String id;
     private String userId;
     private AccountType type;
-    private BigDecimal balance;
+    private long balanceMinor; // Balance in minor units (cents), see Money
+    private long version; // Incremented by every balance write in the database
 
     // Constructor
-    public Account(String id, String userId, AccountType type, BigDecimal balance) {
+    public Account(String id, String userId, AccountType type, long balanceMinor, long version) {
         this.id = id;
         this.userId = userId;
         this.type = type;
-        this.balance = balance;
+        this.balanceMinor = balanceMinor;
+        this.version = version;
+    }
+
+    public Account(String id, String userId, AccountType type, long balanceMinor) {
+        this(id, userId, type, balanceMinor, 0);
+    }
+
+    public Account(String id, String userId, AccountType type, BigDecimal balance) {
+        this(id, userId, type, Money.toMinorUnits(balance));
     }
 
     // Constructor for creating a new account
     public Account(String userId, AccountType type, BigDecimal initialBalance) {
-        this(UUID.randomUUID().toString(), userId, type, initialBalance);
+        this(IdGenerator.generateUniqueId(), userId, type, initialBalance);
     }
 
     // Getters
     public String getId() { return id; }
     public String getUserId() { return userId; }
     public AccountType getType() { return type; }
-    public BigDecimal getBalance() { return balance; }
+    public BigDecimal getBalance() { return Money.toBigDecimal(balanceMinor); } // For display
+    public long getBalanceMinor() { return balanceMinor; }
+    public Money getBalanceMoney() { return Money.ofMinor(balanceMinor); }
+    public long getVersion() { return version; }
 
     // Setters
-    public void setBalance(BigDecimal balance) { this.balance = balance; }
+    public void setBalance(BigDecimal balance) { this.balanceMinor = Money.toMinorUnits(balance); }
+    public void setBalanceMinor(long balanceMinor) { this.balanceMinor = balanceMinor; }
+    public void setVersion(long version) { this.version = version; }
 
     @Override
     public boolean equals(Object o) {
@@ -55,7 +70,7 @@ public class Account {
                "id='" + id + '\'' +
                ", userId='" + userId + '\'' +
                ", type=" + type +
-               ", balance=" + balance +
+               ", balance=" + getBalance() +
                '}';
     }
 }
\ No newline at end of file
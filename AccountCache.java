@@ -0,0 +1,155 @@
+// --- 34. service/AccountCache.java ---
+package service;
+
+import model.Account;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// AccountCache keeps recently used accounts in memory, keyed by account id, with a secondary
+// index of which account ids each user owns. Both maps evict least recently used entries.
+// BankingService writes through it after every committed balance change, so cached balances
+// always match the database. Cached Account objects are replaced, never mutated, once handed out.
+// A by-user list read from the database is only installed if no user's list was invalidated
+// since the read started (see userListGeneration), so a concurrent new account is never hidden.
+public class AccountCache {
+    private final int maxEntries;
+    private final LinkedHashMap<String, Account> accountsById;
+    // Complete list of a user's account ids; dropped as soon as one of those accounts is evicted
+    private final LinkedHashMap<String, List<String>> accountIdsByUser;
+    private long userListGeneration; // Bumped whenever a user's account list may have changed
+    private long hits;
+    private long misses;
+
+    public AccountCache(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Account cache size must be positive.");
+        }
+        this.maxEntries = maxEntries;
+        this.accountsById = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Account> eldest) {
+                if (size() > AccountCache.this.maxEntries) {
+                    accountIdsByUser.remove(eldest.getValue().getUserId());
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.accountIdsByUser = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<String>> eldest) {
+                return size() > AccountCache.this.maxEntries;
+            }
+        };
+    }
+
+    // Returns the cached account, or null on a miss
+    public synchronized Account get(String accountId) {
+        Account account = accountsById.get(accountId);
+        if (account == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return account;
+    }
+
+    // Returns all of a user's accounts, or null if they are not all cached
+    public synchronized List<Account> getByUser(String userId) {
+        List<String> accountIds = accountIdsByUser.get(userId);
+        if (accountIds == null) {
+            misses++;
+            return null;
+        }
+        List<Account> accounts = new ArrayList<>(accountIds.size());
+        for (String accountId : accountIds) {
+            Account account = accountsById.get(accountId);
+            if (account == null) { // Defensive: the index should have been dropped with the account
+                accountIdsByUser.remove(userId);
+                misses++;
+                return null;
+            }
+            accounts.add(account);
+        }
+        hits++;
+        return accounts;
+    }
+
+    // Adds or replaces an account (e.g. after a committed balance change or a new account).
+    // A copy older than the cached one (lower version) is ignored, so late writers cannot regress it.
+    public synchronized void put(Account account) {
+        Account cached = accountsById.get(account.getId());
+        if (cached != null && cached.getVersion() > account.getVersion()) {
+            return;
+        }
+        accountsById.put(account.getId(), account);
+        List<String> accountIds = accountIdsByUser.get(account.getUserId());
+        if (accountIds != null && !accountIds.contains(account.getId())) {
+            accountIds.add(account.getId());
+        }
+    }
+
+    // Read before a by-user database lookup and passed back to putUserAccounts
+    public synchronized long userListGeneration() {
+        return userListGeneration;
+    }
+
+    // Caches the full result of a by-user lookup that started at the given generation;
+    // dropped if a list was invalidated meanwhile, since the result may miss a new account
+    public synchronized void putUserAccounts(String userId, List<Account> accounts, long generation) {
+        if (generation != userListGeneration) {
+            return;
+        }
+        if (accounts.size() > maxEntries) {
+            return; // Could never be held completely
+        }
+        List<String> accountIds = new ArrayList<>(accounts.size());
+        for (Account account : accounts) {
+            Account cached = accountsById.get(account.getId());
+            if (cached == null || cached.getVersion() <= account.getVersion()) {
+                accountsById.put(account.getId(), account);
+            }
+            accountIds.add(account.getId());
+        }
+        accountIdsByUser.put(userId, accountIds);
+    }
+
+    // Forgets an account whose state is no longer known (e.g. after a failed write)
+    public synchronized void invalidate(String accountId) {
+        Account removed = accountsById.remove(accountId);
+        if (removed != null) {
+            invalidateUser(removed.getUserId());
+        }
+    }
+
+    // Forgets a user's account list (e.g. after the user opened an account); the accounts stay cached
+    public synchronized void invalidateUser(String userId) {
+        accountIdsByUser.remove(userId);
+        userListGeneration++;
+    }
+
+    public synchronized void clear() {
+        accountsById.clear();
+        accountIdsByUser.clear();
+    }
+
+    // Statistics
+    public synchronized long getHits() { return hits; }
+    public synchronized long getMisses() { return misses; }
+    public synchronized int size() { return accountsById.size(); }
+    public int getMaxEntries() { return maxEntries; }
+
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("AccountCache{size=%d/%d, hits=%d, misses=%d, hitRate=%.1f%%}",
+                accountsById.size(), maxEntries, hits, misses, getHitRate() * 100);
+    }
+}
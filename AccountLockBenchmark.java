@@ -0,0 +1,152 @@
+// --- 38. bench/AccountLockBenchmark.java ---
+package bench;
+
+import model.Account;
+import service.AccountLockStripes;
+import service.BankingService;
+import service.Session;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Sweeps 1..N threads over balance mutations guarded by AccountLockStripes.
+// Part 1 isolates the locking: an in-memory read-modify-write on random accounts with one global
+// stripe vs the default stripe count. Part 2 runs real deposits through BankingService, each thread
+// on its own account and then all threads on one hot account, and checks that no update was lost.
+// Usage: java bench.AccountLockBenchmark [maxThreads] [opsPerThread]
+public class AccountLockBenchmark {
+    private static final int ACCOUNTS = 10_000;
+
+    @FunctionalInterface
+    private interface Worker {
+        void run(int thread) throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int opsPerThread = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+
+        System.out.println("In-memory read-modify-write (" + opsPerThread * 2_000 + " ops/thread)");
+        for (int stripes : new int[] { 1, AccountLockStripes.DEFAULT_STRIPES }) {
+            for (int threads = 1; threads <= maxThreads; threads *= 2) {
+                inMemory(stripes, threads, opsPerThread * 2_000);
+            }
+        }
+
+        System.out.println("BankingService deposits (" + opsPerThread + " ops/thread)");
+        PrintStream out = System.out;
+        for (boolean hot : new boolean[] { false, true }) {
+            for (int threads = 1; threads <= maxThreads; threads *= 2) {
+                System.setOut(new PrintStream(OutputStream.nullOutputStream())); // The service logs every operation
+                String result;
+                try {
+                    result = deposits(hot, threads, opsPerThread);
+                } finally {
+                    System.setOut(out);
+                }
+                System.out.println(result);
+            }
+        }
+    }
+
+    private static void inMemory(int stripeCount, int threads, int opsPerThread) throws Exception {
+        AccountLockStripes locks = new AccountLockStripes(stripeCount);
+        String[] accountIds = new String[ACCOUNTS];
+        long[] balances = new long[ACCOUNTS];
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accountIds[i] = "account-" + i;
+        }
+        long elapsed = runThreads(threads, thread -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int op = 0; op < opsPerThread; op++) {
+                int from = random.nextInt(ACCOUNTS);
+                int to = random.nextInt(ACCOUNTS);
+                if (from == to) {
+                    continue;
+                }
+                locks.withLocks(accountIds[from], accountIds[to], () -> {
+                    balances[from] -= 1;
+                    balances[to] += 1;
+                    return null;
+                });
+            }
+        });
+        long sum = 0;
+        for (long balance : balances) {
+            sum += balance;
+        }
+        System.out.printf("  stripes=%-4d threads=%-3d %,14.0f transfers/s  (net balance %d)%n",
+                locks.getStripeCount(), threads, (double) threads * opsPerThread * 1e9 / elapsed, sum);
+    }
+
+    private static String deposits(boolean hot, int threads, int opsPerThread) throws Exception {
+        File dbFile = Files.createTempFile("lock-bench", ".db").toFile();
+        dbFile.deleteOnExit();
+        BankingService service = new BankingService(dbFile.getPath());
+        List<Session> sessions = new ArrayList<>();
+        List<Account> accounts = new ArrayList<>();
+        service.registerUser("owner", "benchmark", "Benchmark Owner", false);
+        for (int t = 0; t < threads; t++) {
+            Session session = service.login("owner", "benchmark"); // One session per teller thread
+            sessions.add(session);
+            if (!hot || t == 0) {
+                accounts.add(service.createAccount(session, Account.AccountType.CHECKING, BigDecimal.ZERO));
+            }
+        }
+        BigDecimal amount = new BigDecimal("0.01");
+        long elapsed = runThreads(threads, thread -> {
+            String accountId = accounts.get(hot ? 0 : thread).getId();
+            for (int op = 0; op < opsPerThread; op++) {
+                service.deposit(sessions.get(thread), accountId, amount);
+            }
+        });
+
+        long expectedMinor = (long) threads * opsPerThread;
+        long actualMinor = 0;
+        for (Account account : service.getUserAccounts(sessions.get(0))) {
+            actualMinor += account.getBalanceMinor();
+        }
+        service.shutdown();
+        return String.format("  %-8s threads=%-3d %,10.0f deposits/s  %s",
+                hot ? "hot" : "disjoint", threads, expectedMinor * 1e9 / elapsed,
+                actualMinor == expectedMinor ? "no lost updates" : "LOST " + (expectedMinor - actualMinor) + " updates");
+    }
+
+    private static long runThreads(int threads, Worker worker) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        List<Exception> failures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            Thread w = new Thread(() -> {
+                try {
+                    start.await();
+                    worker.run(thread);
+                } catch (Exception e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                }
+            });
+            w.start();
+            workers.add(w);
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread w : workers) {
+            w.join();
+        }
+        long elapsed = System.nanoTime() - begin;
+        if (!failures.isEmpty()) {
+            throw failures.get(0);
+        }
+        return elapsed;
+    }
+}
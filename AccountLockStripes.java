@@ -0,0 +1,82 @@
+// --- 37. service/AccountLockStripes.java ---
+package service;
+
+import java.sql.SQLException;
+import java.util.concurrent.locks.ReentrantLock;
+
+// AccountLockStripes serializes balance mutations per account without a global lock.
+// Account ids hash onto a fixed array of locks, so memory stays bounded however many accounts
+// exist, and operations on accounts in different stripes run in parallel.
+// Two-account operations always lock the lower stripe index first, so they cannot deadlock.
+public class AccountLockStripes {
+    public static final int DEFAULT_STRIPES = 256;
+
+    // The work run while holding the lock(s)
+    @FunctionalInterface
+    public interface LockedAction<T> {
+        T run() throws SQLException;
+    }
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    public AccountLockStripes() {
+        this(DEFAULT_STRIPES);
+    }
+
+    public AccountLockStripes(int stripeCount) {
+        if (stripeCount < 1) {
+            throw new IllegalArgumentException("Stripe count must be positive.");
+        }
+        int size = Integer.highestOneBit(stripeCount - 1) << 1; // Round up to a power of two
+        if (stripeCount == 1) {
+            size = 1;
+        }
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    int stripeIndex(String accountId) {
+        int h = accountId.hashCode();
+        return (h ^ (h >>> 16)) & mask; // Spread the high bits, as HashMap does
+    }
+
+    public <T> T withLock(String accountId, LockedAction<T> action) throws SQLException {
+        ReentrantLock lock = stripes[stripeIndex(accountId)];
+        lock.lock();
+        try {
+            return action.run();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Locks both accounts' stripes in ascending index order (once if they share a stripe)
+    public <T> T withLocks(String firstAccountId, String secondAccountId, LockedAction<T> action) throws SQLException {
+        int a = stripeIndex(firstAccountId);
+        int b = stripeIndex(secondAccountId);
+        if (a == b) {
+            return withLock(firstAccountId, action);
+        }
+        ReentrantLock lower = stripes[Math.min(a, b)];
+        ReentrantLock higher = stripes[Math.max(a, b)];
+        lower.lock();
+        try {
+            higher.lock();
+            try {
+                return action.run();
+            } finally {
+                higher.unlock();
+            }
+        } finally {
+            lower.unlock();
+        }
+    }
+}
@@ -2,20 +2,24 @@
 package gui;
 
 import model.Account;
+import service.AsyncBankingService;
 import service.BankingService;
+import service.Session;
+import util.IdGenerator;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import javax.swing.border.TitledBorder; // Added for titled borders
 import java.awt.*;
 import java.math.BigDecimal;
-import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
 import java.lang.Runnable; 
 
 // AccountPanel is a JPanel for creating new accounts and performing deposit/withdrawal operations
 public class AccountPanel extends JPanel {
     private BankingService bankingService;
+    private AsyncBankingService asyncBankingService; // Balance changes run off the event dispatch thread
     private Runnable refreshDashboardCallback; // Callback to refresh the main frame
     private model.User currentUser; // Store current user for contextual operations
 
@@ -23,6 +27,7 @@ public class AccountPanel extends JPanel {
     private JButton createAccountButton;
 
     private JComboBox<String> accountSelectDepositWithdrawCombo;
+    private final List<Account> comboAccounts = new ArrayList<>(); // The account behind each combo index
     private JTextField amountField;
     private JButton depositButton, withdrawButton;
 
@@ -43,6 +48,7 @@ public class AccountPanel extends JPanel {
     // Constructor
     public AccountPanel(BankingService bankingService, Runnable refreshDashboardCallback) { // Changed to Runnable
         this.bankingService = bankingService;
+        this.asyncBankingService = new AsyncBankingService(bankingService);
         this.refreshDashboardCallback = refreshDashboardCallback;
         setLayout(new BorderLayout(10, 10));
         setBorder(new EmptyBorder(15, 15, 15, 15));
@@ -202,6 +208,7 @@ public class AccountPanel extends JPanel {
     public void refreshAccounts() {
         userAccountsModel.clear();
         accountSelectDepositWithdrawCombo.removeAllItems();
+        comboAccounts.clear();
 
         if (currentUser == null) {
             userAccountsModel.addElement("Please log in to view accounts.");
@@ -215,8 +222,9 @@ public class AccountPanel extends JPanel {
                 accountSelectDepositWithdrawCombo.addItem("No accounts available");
             } else {
                 for (Account acc : accounts) {
-                    userAccountsModel.addElement(String.format("%s Account (ID: %s): $%.2f", acc.getType().name(), acc.getId().substring(0, 8), acc.getBalance()));
-                    accountSelectDepositWithdrawCombo.addItem(acc.getType().name() + " (" + acc.getId().substring(0, 8) + ")");
+                    userAccountsModel.addElement(String.format("%s Account (ID: %s): $%.2f", acc.getType().name(), IdGenerator.shortId(acc.getId()), acc.getBalance()));
+                    accountSelectDepositWithdrawCombo.addItem(acc.getType().name() + " (" + IdGenerator.shortId(acc.getId()) + ")");
+                    comboAccounts.add(acc);
                 }
             }
         } catch (Exception e) {
@@ -263,32 +271,43 @@ public class AccountPanel extends JPanel {
     // Handles transactions (deposit/withdrawal)
     private void handleTransaction(boolean isDeposit) {
         int selectedIndex = accountSelectDepositWithdrawCombo.getSelectedIndex();
-        if (selectedIndex == -1 || accountSelectDepositWithdrawCombo.getSelectedItem().equals("No accounts available") || accountSelectDepositWithdrawCombo.getSelectedItem().equals("Error loading accounts")) {
+        if (selectedIndex == -1 || selectedIndex >= comboAccounts.size()) { // Nothing, or a placeholder item
             JOptionPane.showMessageDialog(this, "Please select an account first.", "Selection Error", JOptionPane.WARNING_MESSAGE);
             return;
         }
 
         try {
-            List<Account> accounts = bankingService.getUserAccounts();
-            Account selectedAccount = accounts.get(selectedIndex);
+            Account selectedAccount = comboAccounts.get(selectedIndex);
             String amountStr = amountField.getText().trim();
             BigDecimal amount = new BigDecimal(amountStr);
 
-            if (isDeposit) {
-                bankingService.deposit(selectedAccount.getId(), amount);
-                JOptionPane.showMessageDialog(this, String.format("Deposited $%.2f to %s account.", amount, selectedAccount.getType().name()), "Success", JOptionPane.INFORMATION_MESSAGE);
-            } else {
-                bankingService.withdraw(selectedAccount.getId(), amount);
-                JOptionPane.showMessageDialog(this, String.format("Withdrew $%.2f from %s account.", amount, selectedAccount.getType().name()), "Success", JOptionPane.INFORMATION_MESSAGE);
-            }
-            amountField.setText(""); // Clear field
-            refreshAccounts(); // Refresh this panel's accounts display
-            if (refreshDashboardCallback != null) { // Call dashboard refresh to update balance, etc.
-                refreshDashboardCallback.run();
-            }
+            Session session = bankingService.getCurrentSession();
+            depositButton.setEnabled(false);
+            withdrawButton.setEnabled(false);
+            (isDeposit
+                    ? asyncBankingService.depositAsync(session, selectedAccount.getId(), amount)
+                    : asyncBankingService.withdrawAsync(session, selectedAccount.getId(), amount))
+                .whenComplete((ignored, failure) -> SwingUtilities.invokeLater(() -> {
+                    depositButton.setEnabled(true);
+                    withdrawButton.setEnabled(true);
+                    if (failure != null) {
+                        JOptionPane.showMessageDialog(this, "Transaction failed: " + AsyncBankingService.unwrap(failure).getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                        return;
+                    }
+                    if (isDeposit) {
+                        JOptionPane.showMessageDialog(this, String.format("Deposited $%.2f to %s account.", amount, selectedAccount.getType().name()), "Success", JOptionPane.INFORMATION_MESSAGE);
+                    } else {
+                        JOptionPane.showMessageDialog(this, String.format("Withdrew $%.2f from %s account.", amount, selectedAccount.getType().name()), "Success", JOptionPane.INFORMATION_MESSAGE);
+                    }
+                    amountField.setText(""); // Clear field
+                    refreshAccounts(); // Refresh this panel's accounts display
+                    if (refreshDashboardCallback != null) { // Call dashboard refresh to update balance, etc.
+                        refreshDashboardCallback.run();
+                    }
+                }));
         } catch (NumberFormatException ex) {
             JOptionPane.showMessageDialog(this, "Invalid amount format.", "Input Error", JOptionPane.ERROR_MESSAGE);
-        } catch (IllegalArgumentException | SQLException ex) {
+        } catch (IllegalArgumentException ex) {
             JOptionPane.showMessageDialog(this, "Transaction failed: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
         } catch (Exception ex) {
              JOptionPane.showMessageDialog(this, "Unexpected error: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
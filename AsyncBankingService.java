@@ -0,0 +1,154 @@
+// --- 41. service/AsyncBankingService.java ---
+package service;
+
+import model.Account;
+import model.LoanApplication;
+import model.TransactionPage;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// AsyncBankingService is a non-blocking facade over BankingService.
+// Each call returns a CompletableFuture right away and runs the blocking service method on an
+// executor: virtual threads when the JVM has them (Java 21+), otherwise a shared pool of daemon
+// threads. In SEQUENCED mode balance changes skip the executor and go straight to the ledger
+// writer's queue. Futures fail with the exception the blocking method would have thrown; use
+// unwrap() to get it back from a CompletionException inside whenComplete/exceptionally.
+public class AsyncBankingService {
+    private final BankingService service;
+    private final Executor executor;
+
+    @FunctionalInterface
+    private interface BlockingCall<T> {
+        T call() throws Exception;
+    }
+
+    public AsyncBankingService(BankingService service) {
+        this(service, DefaultExecutor.INSTANCE);
+    }
+
+    public AsyncBankingService(BankingService service, Executor executor) {
+        this.service = service;
+        this.executor = executor;
+    }
+
+    public BankingService getService() { return service; }
+    public Executor getExecutor() { return executor; }
+
+    // The shared default executor (virtual thread per task when available), e.g. for an HTTP server
+    public static ExecutorService defaultExecutor() {
+        return DefaultExecutor.INSTANCE;
+    }
+
+    // --- Sessions and accounts ---
+    public CompletableFuture<Session> loginAsync(String username, String password) {
+        return submit(() -> service.login(username, password));
+    }
+
+    public CompletableFuture<Account> createAccountAsync(Session session, Account.AccountType type, BigDecimal initialBalance) {
+        return submit(() -> service.createAccount(session, type, initialBalance));
+    }
+
+    public CompletableFuture<List<Account>> getUserAccountsAsync(Session session) {
+        return submit(() -> service.getUserAccounts(session));
+    }
+
+    public CompletableFuture<Account> getAccountAsync(String accountId) {
+        return submit(() -> service.getAccount(accountId));
+    }
+
+    public CompletableFuture<TransactionPage> getAccountTransactionsPageAsync(String accountId, TransactionPage.Cursor after, int pageSize) {
+        return submit(() -> service.getAccountTransactionsPage(accountId, after, pageSize));
+    }
+
+    // --- Balance changes ---
+    public CompletableFuture<Void> depositAsync(Session session, String accountId, BigDecimal amount) {
+        if (isSequenced()) {
+            return service.depositAsync(session, accountId, amount);
+        }
+        return submit(() -> { service.deposit(session, accountId, amount); return null; });
+    }
+
+    public CompletableFuture<Void> withdrawAsync(Session session, String accountId, BigDecimal amount) {
+        if (isSequenced()) {
+            return service.withdrawAsync(session, accountId, amount);
+        }
+        return submit(() -> { service.withdraw(session, accountId, amount); return null; });
+    }
+
+    public CompletableFuture<Void> transferFundsAsync(Session session, String fromAccountId, String toAccountId, BigDecimal amount) {
+        if (isSequenced()) {
+            return service.transferFundsAsync(session, fromAccountId, toAccountId, amount);
+        }
+        return submit(() -> { service.transferFunds(session, fromAccountId, toAccountId, amount); return null; });
+    }
+
+    // --- Loans ---
+    public CompletableFuture<LoanApplication> applyForLoanAsync(Session session, BigDecimal amount, String reason, int priorityScore) {
+        return submit(() -> service.applyForLoan(session, amount, reason, priorityScore));
+    }
+
+    public CompletableFuture<LoanApplication> approveLoanAsync(Session session, String loanId, String recipientAccountId) {
+        if (isSequenced()) {
+            return service.approveLoanAsync(session, loanId, recipientAccountId);
+        }
+        return submit(() -> service.approveLoan(session, loanId, recipientAccountId));
+    }
+
+    public CompletableFuture<LoanApplication> rejectLoanAsync(Session session, String loanId) {
+        return submit(() -> service.rejectLoan(session, loanId));
+    }
+
+    // Strips the CompletionException wrapper that dependent stages put around a failure
+    public static Throwable unwrap(Throwable failure) {
+        while (failure instanceof CompletionException && failure.getCause() != null) {
+            failure = failure.getCause();
+        }
+        return failure;
+    }
+
+    private boolean isSequenced() {
+        return service.getConcurrencyMode() == ConcurrencyMode.SEQUENCED;
+    }
+
+    private <T> CompletableFuture<T> submit(BlockingCall<T> call) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(call.call());
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                }
+            });
+        } catch (RuntimeException e) { // Executor rejected the task (e.g. shut down)
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    // Created on first use and shared by every facade that does not bring its own executor
+    private static final class DefaultExecutor {
+        static final ExecutorService INSTANCE = create();
+
+        private static ExecutorService create() {
+            try {
+                // Looked up reflectively so the code still compiles and runs on pre-21 JDKs
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+                AtomicInteger threadNumber = new AtomicInteger();
+                return Executors.newCachedThreadPool(task -> {
+                    Thread thread = new Thread(task, "banking-async-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true); // Never keeps the application alive
+                    return thread;
+                });
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+// --- 46. bench/BankingBenchmarks.java ---
+package bench;
+
+import db.DatabaseManager;
+import model.Account;
+import model.LoanApplication;
+import model.Transaction;
+import model.User;
+import service.BankingService;
+import service.Session;
+import util.PasswordHasher;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Benchmark suite for the persistence layer and the service operations, run with Microbench.
+// Seeds a temp-file SQLite database with --scale users (two accounts and one pending loan each)
+// plus one account per --history size holding exactly that many transactions, then measures:
+//   db.getAccountById, db.addTransaction, db.getTransactionsByAccountId{history},
+//   db.getLoanApplicationsByStatus, service.deposit, service.transferFunds, service.loginUser,
+//   service.approveLoan (applying for the loan is untimed setup)
+// Results go to --out as JMH-layout JSON so runs of two versions can be compared.
+// Usage: java bench.BankingBenchmarks [--scale 1000] [--history 10,1000,10000] [--warmup 3]
+//            [--iterations 5] [--time 1000] [--filter regex] [--out bench-results.json]
+public class BankingBenchmarks {
+    private static final String PASSWORD = "benchmark";
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        }
+        int scale = Integer.parseInt(options.getOrDefault("scale", "1000"));
+        String[] historySizes = options.getOrDefault("history", "10,1000,10000").split(",");
+        PrintStream out = System.out;
+        Microbench bench = new Microbench(
+                Integer.parseInt(options.getOrDefault("warmup", "3")),
+                Integer.parseInt(options.getOrDefault("iterations", "5")),
+                Long.parseLong(options.getOrDefault("time", "1000")),
+                options.get("filter"), out);
+        Path output = Path.of(options.getOrDefault("out", "bench-results.json"));
+
+        File dbFile = Files.createTempFile("banking-bench", ".db").toFile();
+        dbFile.deleteOnExit();
+        System.setOut(new PrintStream(OutputStream.nullOutputStream())); // DatabaseManager and the service log every write
+        try {
+            out.printf("Seeding %,d users, history sizes %s ...%n", scale, String.join(",", historySizes));
+            DatabaseManager db = new DatabaseManager(dbFile.getPath());
+            db.initializeDatabase();
+            Map<String, String> scaleParam = Map.of("scale", String.valueOf(scale));
+            List<Account> accounts = seedAccounts(db, scale);
+            Map<Integer, String> historyAccounts = seedHistories(db, accounts.get(0).getUserId(), historySizes);
+
+            // --- Persistence layer ---
+            bench.run("db.getAccountById", scaleParam, () -> db.getAccountById(random(accounts).getId()));
+            bench.run("db.addTransaction", scaleParam, () -> {
+                Transaction t = new Transaction(random(accounts).getId(), null, 100, Transaction.TransactionType.DEPOSIT, "Benchmark");
+                db.addTransaction(t);
+                return t;
+            });
+            for (Map.Entry<Integer, String> entry : historyAccounts.entrySet()) {
+                String accountId = entry.getValue();
+                bench.run("db.getTransactionsByAccountId", Map.of("history", String.valueOf(entry.getKey())),
+                        () -> db.getTransactionsByAccountId(accountId));
+            }
+            bench.run("db.getLoanApplicationsByStatus", scaleParam, () -> db.getLoanApplicationsByStatus(LoanApplication.LoanStatus.PENDING));
+            db.close();
+
+            // --- Service layer ---
+            BankingService service = new BankingService(dbFile.getPath());
+            Session teller = service.login("user-0", PASSWORD);
+            List<Account> tellerAccounts = service.getUserAccounts(teller);
+            String adminName = "bench-admin";
+            service.registerUser(adminName, PASSWORD, "Benchmark Admin", true);
+            Session admin = service.login(adminName, PASSWORD);
+            BigDecimal cent = new BigDecimal("0.01");
+
+            bench.run("service.deposit", scaleParam, () -> {
+                service.deposit(teller, tellerAccounts.get(0).getId(), cent);
+                return null;
+            });
+            String source = tellerAccounts.get(0).getId();
+            bench.run("service.transferFunds", scaleParam, () -> {
+                String destination = random(accounts).getId();
+                service.transferFunds(teller, source, destination.equals(source) ? tellerAccounts.get(1).getId() : destination, cent);
+                return null;
+            });
+            bench.run("service.loginUser", scaleParam, () -> service.loginUser("user-" + ThreadLocalRandom.current().nextInt(scale), PASSWORD));
+            bench.run("service.approveLoan", scaleParam,
+                    () -> service.applyForLoan(teller, cent, "benchmark", 1 + ThreadLocalRandom.current().nextInt(10)),
+                    loan -> service.approveLoan(admin, loan.getId(), tellerAccounts.get(0).getId()));
+            service.shutdown();
+        } finally {
+            System.setOut(out);
+        }
+        bench.writeJson(output);
+    }
+
+    // scale users, each with a checking and a savings account and one pending loan
+    private static List<Account> seedAccounts(DatabaseManager db, int scale) throws Exception {
+        List<Account> accounts = new ArrayList<>(scale * 2);
+        byte[] salt = PasswordHasher.generateSalt();
+        String hash = PasswordHasher.hashPassword(PASSWORD, salt); // Hashed once; every seeded user shares it
+        for (int u = 0; u < scale; u++) {
+            User user = new User("user-" + u, hash, "Benchmark User " + u, false);
+            db.addUser(user, salt);
+            accounts.add(new Account(user.getId(), Account.AccountType.CHECKING, new BigDecimal("1000000.00")));
+            accounts.add(new Account(user.getId(), Account.AccountType.SAVINGS, new BigDecimal("1000.00")));
+            db.addLoanApplication(new LoanApplication(user.getId(), new BigDecimal("500.00"), "seed", 1 + u % 10));
+        }
+        db.addAccounts(accounts);
+        return accounts;
+    }
+
+    // One account per history size, holding exactly that many transactions
+    private static Map<Integer, String> seedHistories(DatabaseManager db, String userId, String[] historySizes) throws Exception {
+        Map<Integer, String> historyAccounts = new LinkedHashMap<>();
+        for (String size : historySizes) {
+            int history = Integer.parseInt(size.trim());
+            Account account = new Account(userId, Account.AccountType.CHECKING, BigDecimal.ZERO);
+            db.addAccount(account);
+            List<Transaction> transactions = new ArrayList<>(history);
+            for (int i = 0; i < history; i++) {
+                transactions.add(new Transaction(account.getId(), null, 100 + i, Transaction.TransactionType.DEPOSIT, "History " + i));
+            }
+            db.addTransactions(transactions);
+            historyAccounts.put(history, account.getId());
+        }
+        return historyAccounts;
+    }
+
+    private static Account random(List<Account> accounts) {
+        return accounts.get(ThreadLocalRandom.current().nextInt(accounts.size()));
+    }
+}
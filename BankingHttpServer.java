@@ -0,0 +1,526 @@
+// --- 43. server/BankingHttpServer.java ---
+package server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import db.DatabaseManager;
+import model.Account;
+import model.LoanApplication;
+import model.Transaction;
+import model.TransactionPage;
+import model.User;
+import service.AsyncBankingService;
+import service.BankingService;
+import service.LedgerSequencer;
+import service.Session;
+import util.Json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+// BankingHttpServer exposes BankingService over HTTP/JSON using the JDK's built-in HttpServer.
+// Every request runs on its own virtual thread (AsyncBankingService.defaultExecutor()) and calls the
+// blocking service methods directly. POST /api/login returns a session token; every other endpoint
+// except registration expects it as "Authorization: Bearer <token>".
+//
+//   POST /api/users                       {username, password, fullName}
+//   POST /api/login                       {username, password} -> {token, user}
+//   POST /api/logout
+//   GET  /api/me
+//   GET  /api/accounts                    POST /api/accounts {type, initialBalance}
+//   GET  /api/accounts/{id}
+//   GET  /api/accounts/{id}/transactions  ?limit=50&after=<cursor from the previous page>
+//   POST /api/deposit                     {accountId, amount}
+//   POST /api/withdraw                    {accountId, amount}
+//   POST /api/transfer                    {fromAccountId, toAccountId, amount}
+//   GET  /api/loans                       POST /api/loans {amount, reason, priorityScore}
+//   GET  /api/loans/pending               ?limit=N, unclaimed loans in priority order (admin)
+//   POST /api/loans/claim                 {count, leaseSeconds} -> the loans now leased to you (admin)
+//   GET  /api/loans/leased                your live leases, soonest expiry first (admin)
+//   POST /api/loans/leased/renew          {leaseSeconds} extends all your leases (admin)
+//   POST /api/loans/release               {loanIds} hands leased loans back to the queue (admin)
+//   POST /api/loans/{id}/approve          {accountId} (admin)
+//   POST /api/loans/{id}/reject           (admin)
+//   GET  /api/graph
+//   GET  /api/stats
+//
+// Amounts are decimal strings or JSON numbers and are never read as doubles. Errors come back as
+// {"error": message} with 400 (bad input), 401 (no/unknown token), 403 (not allowed), 404,
+// 503 (database busy) or 500.
+public class BankingHttpServer {
+    public static final int DEFAULT_PORT = 8080;
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int DEFAULT_LEASE_SECONDS = 300;
+    private static final int MAX_PAGE_SIZE = 500;
+
+    private final BankingService service;
+    private final HttpServer httpServer;
+
+    static {
+        // The JDK server writes response headers and body separately; with Nagle's algorithm on, every
+        // small response then waits for the client's delayed ACK (~40 ms). Must be set before the
+        // first HttpServer is created; an explicit -D setting wins.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    // Thrown by handlers to answer with a specific status
+    private static final class ApiException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        final int status;
+
+        ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Object handle(Request request) throws Exception;
+    }
+
+    // One request: query parameters, lazily parsed body and the caller's session
+    private final class Request {
+        final HttpExchange exchange;
+        private Map<String, Object> body;
+
+        Request(HttpExchange exchange) {
+            this.exchange = exchange;
+        }
+
+        Map<String, Object> body() throws IOException {
+            if (body == null) {
+                try (InputStream in = exchange.getRequestBody()) {
+                    byte[] bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+                    if (bytes.length > MAX_BODY_BYTES) {
+                        throw new ApiException(413, "Request body too large.");
+                    }
+                    body = Json.parseObject(new String(bytes, StandardCharsets.UTF_8));
+                }
+            }
+            return body;
+        }
+
+        String string(String field) throws IOException {
+            Object value = body().get(field);
+            if (value == null || value.toString().isBlank()) {
+                throw new IllegalArgumentException("Missing field: " + field);
+            }
+            return value.toString();
+        }
+
+        BigDecimal amount(String field) throws IOException {
+            Object value = body().get(field);
+            if (value instanceof BigDecimal) {
+                return (BigDecimal) value;
+            }
+            if (value instanceof String) {
+                return new BigDecimal(((String) value).trim()); // NumberFormatException is a 400 too
+            }
+            throw new IllegalArgumentException("Missing or invalid amount: " + field);
+        }
+
+        int integer(String field, int defaultValue) throws IOException {
+            Object value = body().get(field);
+            if (value == null) {
+                return defaultValue;
+            }
+            try {
+                return ((BigDecimal) value).intValueExact();
+            } catch (ClassCastException | ArithmeticException e) { // Not a number, or not a whole int
+                throw new IllegalArgumentException("Invalid integer: " + field);
+            }
+        }
+
+        String query(String name) {
+            String rawQuery = exchange.getRequestURI().getRawQuery();
+            if (rawQuery == null) {
+                return null;
+            }
+            for (String pair : rawQuery.split("&")) {
+                int eq = pair.indexOf('=');
+                String key = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+                if (key.equals(name)) {
+                    return eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+                }
+            }
+            return null;
+        }
+
+        Session session() {
+            String header = exchange.getRequestHeaders().getFirst("Authorization");
+            String token = header != null && header.startsWith("Bearer ") ? header.substring(7).trim() : null;
+            Session session = service.getSession(token);
+            if (session == null) {
+                throw new ApiException(401, "Missing or unknown session token.");
+            }
+            return session;
+        }
+
+        Session admin() {
+            Session session = session();
+            if (!session.isAdmin()) {
+                throw new ApiException(403, "Administrator access required.");
+            }
+            return session;
+        }
+    }
+
+    public BankingHttpServer(BankingService service, int port) throws IOException {
+        this(service, new InetSocketAddress(port), AsyncBankingService.defaultExecutor());
+    }
+
+    public BankingHttpServer(BankingService service, InetSocketAddress address, Executor executor) throws IOException {
+        this.service = service;
+        this.httpServer = HttpServer.create(address, 0);
+        this.httpServer.setExecutor(executor);
+        this.httpServer.createContext("/api/", this::dispatch);
+    }
+
+    public void start() {
+        httpServer.start();
+        System.out.println("Banking HTTP server listening on port " + getPort());
+    }
+
+    // Stops accepting connections and waits up to delaySeconds for in-flight exchanges
+    public void stop(int delaySeconds) {
+        httpServer.stop(delaySeconds);
+    }
+
+    public int getPort() {
+        return httpServer.getAddress().getPort();
+    }
+
+    // --- Routing ---
+    private void dispatch(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath().substring("/api/".length());
+        String[] segments = path.isEmpty() ? new String[0] : path.split("/");
+        Request request = new Request(exchange);
+        String method = exchange.getRequestMethod();
+        int status = creates(method, segments) ? 201 : 200;
+        Object response;
+        try {
+            Handler handler = route(method, segments);
+            if (handler == null) {
+                throw new ApiException(404, "No such endpoint: " + method + " /api/" + path);
+            }
+            response = handler.handle(request);
+        } catch (ApiException e) {
+            status = e.status;
+            response = error(e.getMessage());
+        } catch (IllegalArgumentException e) { // Includes NumberFormatException and malformed JSON
+            status = 400;
+            response = error(e.getMessage());
+        } catch (IllegalStateException e) { // The service refuses, e.g. a non-admin approving loans
+            status = 403;
+            response = error(e.getMessage());
+        } catch (SQLException e) {
+            status = DatabaseManager.isBusy(e) ? 503 : 500;
+            response = error(status == 503 ? "Database busy, retry later." : "Database error.");
+            System.err.println("HTTP " + method + " /api/" + path + " failed: " + e.getMessage());
+        } catch (Exception e) {
+            status = 500;
+            response = error("Internal error.");
+            System.err.println("HTTP " + method + " /api/" + path + " failed: " + e);
+        }
+        send(exchange, status, response);
+    }
+
+    private Handler route(String method, String[] s) {
+        boolean get = "GET".equals(method);
+        boolean post = "POST".equals(method);
+        switch (s.length == 0 ? "" : s[0]) {
+            case "users":
+                return post && s.length == 1 ? this::register : null;
+            case "login":
+                return post && s.length == 1 ? this::login : null;
+            case "logout":
+                return post && s.length == 1 ? this::logout : null;
+            case "me":
+                return get && s.length == 1 ? r -> userJson(r.session().getUser()) : null;
+            case "accounts":
+                if (s.length == 1) {
+                    return get ? this::listAccounts : post ? this::createAccount : null;
+                }
+                if (s.length == 2 && get) {
+                    return r -> accountJson(ownedAccount(r, s[1]));
+                }
+                return s.length == 3 && get && s[2].equals("transactions") ? r -> transactions(r, s[1]) : null;
+            case "deposit":
+                return post && s.length == 1 ? this::deposit : null;
+            case "withdraw":
+                return post && s.length == 1 ? this::withdraw : null;
+            case "transfer":
+                return post && s.length == 1 ? this::transfer : null;
+            case "loans":
+                if (s.length == 1) {
+                    return get ? this::listLoans : post ? this::applyForLoan : null;
+                }
+                if (s.length == 2 && get && s[1].equals("pending")) {
+                    return this::pendingLoans;
+                }
+                if (s.length == 2 && post && s[1].equals("claim")) {
+                    return r -> loansJson(service.claimLoans(r.admin(), r.integer("count", 1), leaseMillis(r)));
+                }
+                if (s.length == 2 && get && s[1].equals("leased")) {
+                    return r -> loansJson(service.getLeasedLoans(r.admin()));
+                }
+                if (s.length == 3 && post && s[1].equals("leased") && s[2].equals("renew")) {
+                    return r -> loansJson(service.renewLoanLeases(r.admin(), leaseMillis(r)));
+                }
+                if (s.length == 2 && post && s[1].equals("release")) {
+                    return this::releaseLoans;
+                }
+                if (s.length == 3 && post && s[2].equals("approve")) {
+                    return r -> loanJson(service.approveLoan(r.admin(), s[1], r.string("accountId")));
+                }
+                return s.length == 3 && post && s[2].equals("reject") ? r -> loanJson(service.rejectLoan(r.admin(), s[1])) : null;
+            case "graph":
+                return get && s.length == 1 ? r -> { r.session(); return service.getSummarizedTransactionGraph(); } : null;
+            case "stats":
+                return get && s.length == 1 ? this::stats : null;
+            default:
+                return null;
+        }
+    }
+
+    // POSTs that create something answer 201; the rest answer 200
+    private static boolean creates(String method, String[] s) {
+        return "POST".equals(method) && s.length == 1 && (s[0].equals("users") || s[0].equals("accounts") || s[0].equals("loans"));
+    }
+
+    // --- Handlers ---
+    private Object register(Request r) throws Exception {
+        User user = service.registerUser(r.string("username"), r.string("password"), r.string("fullName"), false);
+        return userJson(user);
+    }
+
+    private Object login(Request r) throws Exception {
+        Session session;
+        try {
+            session = service.login(r.string("username"), r.string("password"));
+        } catch (IllegalArgumentException | SQLException e) {
+            throw e;
+        } catch (Exception e) { // Unknown user or wrong password; do not say which
+            throw new ApiException(401, "Invalid username or password.");
+        }
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("token", session.getToken());
+        json.put("user", userJson(session.getUser()));
+        return json;
+    }
+
+    private Object logout(Request r) {
+        service.logout(r.session());
+        return Map.of("loggedOut", true);
+    }
+
+    private Object listAccounts(Request r) throws SQLException {
+        List<Object> accounts = new ArrayList<>();
+        for (Account account : service.getUserAccounts(r.session())) {
+            accounts.add(accountJson(account));
+        }
+        return accounts;
+    }
+
+    private Object createAccount(Request r) throws Exception {
+        Session session = r.session();
+        Account.AccountType type = Account.AccountType.valueOf(r.string("type").trim().toUpperCase());
+        BigDecimal initialBalance = r.body().containsKey("initialBalance") ? r.amount("initialBalance") : BigDecimal.ZERO;
+        return accountJson(service.createAccount(session, type, initialBalance));
+    }
+
+    // The account, if the caller owns it (or is an administrator)
+    private Account ownedAccount(Request r, String accountId) throws SQLException {
+        Session session = r.session();
+        Account account = service.getAccount(accountId);
+        if (account == null || (!session.isAdmin() && !account.getUserId().equals(session.getUserId()))) {
+            throw new ApiException(404, "Account not found.");
+        }
+        return account;
+    }
+
+    private Object transactions(Request r, String accountId) throws SQLException {
+        ownedAccount(r, accountId);
+        String limit = r.query("limit");
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.min(Math.max(Integer.parseInt(limit), 1), MAX_PAGE_SIZE);
+        TransactionPage page = service.getAccountTransactionsPage(accountId, parseCursor(r.query("after")), pageSize);
+        List<Object> transactions = new ArrayList<>();
+        for (Transaction t : page.getTransactions()) {
+            transactions.add(transactionJson(t));
+        }
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("transactions", transactions);
+        TransactionPage.Cursor next = page.getNextCursor();
+        json.put("next", next == null ? null : next.getTimestampMillis() + ":" + next.getId());
+        return json;
+    }
+
+    private static TransactionPage.Cursor parseCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        int colon = cursor.indexOf(':');
+        if (colon < 0) {
+            throw new IllegalArgumentException("Invalid page cursor.");
+        }
+        return new TransactionPage.Cursor(Long.parseLong(cursor.substring(0, colon)), cursor.substring(colon + 1));
+    }
+
+    private Object deposit(Request r) throws Exception {
+        Session session = r.session();
+        String accountId = r.string("accountId");
+        service.deposit(session, accountId, r.amount("amount"));
+        return accountJson(service.getAccount(accountId));
+    }
+
+    private Object withdraw(Request r) throws Exception {
+        Session session = r.session();
+        String accountId = r.string("accountId");
+        service.withdraw(session, accountId, r.amount("amount"));
+        return accountJson(service.getAccount(accountId));
+    }
+
+    private Object transfer(Request r) throws Exception {
+        Session session = r.session();
+        String fromAccountId = r.string("fromAccountId");
+        service.transferFunds(session, fromAccountId, r.string("toAccountId"), r.amount("amount"));
+        return accountJson(service.getAccount(fromAccountId));
+    }
+
+    private Object listLoans(Request r) throws SQLException {
+        List<Object> loans = new ArrayList<>();
+        for (LoanApplication loan : service.getLoansByUserId(r.session().getUserId())) {
+            loans.add(loanJson(loan));
+        }
+        return loans;
+    }
+
+    private Object applyForLoan(Request r) throws Exception {
+        Session session = r.session();
+        int priorityScore = r.integer("priorityScore", BankingService.LOWEST_PRIORITY_SCORE); // Range checked by the service
+        Object reason = r.body().get("reason");
+        return loanJson(service.applyForLoan(session, r.amount("amount"), reason == null ? "" : reason.toString(), priorityScore));
+    }
+
+    private Object pendingLoans(Request r) {
+        String limit = r.query("limit");
+        return loansJson(service.getPendingLoans(r.admin(), limit == null ? Integer.MAX_VALUE : Integer.parseInt(limit)));
+    }
+
+    private Object releaseLoans(Request r) throws Exception {
+        Session admin = r.admin();
+        Object ids = r.body().get("loanIds");
+        if (!(ids instanceof List)) {
+            throw new IllegalArgumentException("Missing field: loanIds");
+        }
+        List<String> loanIds = new ArrayList<>();
+        for (Object id : (List<?>) ids) {
+            loanIds.add(String.valueOf(id));
+        }
+        return loansJson(service.releaseLoans(admin, loanIds));
+    }
+
+    private static long leaseMillis(Request r) throws IOException {
+        return r.integer("leaseSeconds", DEFAULT_LEASE_SECONDS) * 1000L;
+    }
+
+    private Object stats(Request r) {
+        r.session();
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("concurrencyMode", service.getConcurrencyMode());
+        json.put("activeSessions", service.getActiveSessionCount());
+        json.put("accountCache", service.getAccountCache().toString());
+        json.put("optimisticRetries", service.getOptimisticRetryCount());
+        LedgerSequencer sequencer = service.getLedgerSequencer();
+        if (sequencer != null) {
+            json.put("ledgerBatches", sequencer.getCommittedBatchCount());
+            json.put("ledgerCommands", sequencer.getCommittedCommandCount());
+        }
+        return json;
+    }
+
+    // --- JSON shapes ---
+    private static Map<String, Object> userJson(User user) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", user.getId());
+        json.put("username", user.getUsername());
+        json.put("fullName", user.getFullName());
+        json.put("admin", user.isAdmin());
+        return json;
+    }
+
+    private static Map<String, Object> accountJson(Account account) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", account.getId());
+        json.put("userId", account.getUserId());
+        json.put("type", account.getType());
+        json.put("balance", account.getBalance());
+        json.put("version", account.getVersion());
+        return json;
+    }
+
+    private static Map<String, Object> transactionJson(Transaction t) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", t.getId());
+        json.put("accountId", t.getAccountId());
+        json.put("counterpartyAccountId", t.getCounterpartyAccountId());
+        json.put("amount", t.getAmount());
+        json.put("type", t.getType());
+        json.put("timestamp", t.getTimestampMillis());
+        json.put("description", t.getDescription());
+        return json;
+    }
+
+    private static Map<String, Object> loanJson(LoanApplication loan) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", loan.getId());
+        json.put("userId", loan.getUserId());
+        json.put("amount", loan.getAmount());
+        json.put("status", loan.getStatus());
+        json.put("applicationDate", loan.getApplicationDateMillis());
+        json.put("reason", loan.getReason());
+        json.put("priorityScore", loan.getPriorityScore());
+        if (loan.getLeaseOwnerId() != null) {
+            json.put("leaseOwnerId", loan.getLeaseOwnerId());
+            json.put("leaseExpires", loan.getLeaseExpiresAtMillis());
+        }
+        return json;
+    }
+
+    private static List<Object> loansJson(List<LoanApplication> loans) {
+        List<Object> json = new ArrayList<>(loans.size());
+        for (LoanApplication loan : loans) {
+            json.add(loanJson(loan));
+        }
+        return json;
+    }
+
+    private static Map<String, Object> error(String message) {
+        return Map.of("error", message == null ? "Request failed." : message);
+    }
+
+    private static void send(HttpExchange exchange, int status, Object response) throws IOException {
+        byte[] bytes = Json.write(response).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+        exchange.close();
+    }
+}
@@ -1,34 +1,72 @@
 // --- 10. service/BankingService.java ---
 package service;
 
+import db.DatabaseConfig;
 import db.DatabaseManager;
+import db.RowCallback;
+import db.UnitOfWork;
 import model.*;
+import util.IdGenerator;
 import util.PasswordHasher;
-import util.LoanPriorityComparator;
 
 import java.math.BigDecimal;
 import java.sql.SQLException;
-import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter; // Added import
-import java.sql.Connection; // Added import
-import java.sql.Statement; // Added import
-import java.sql.ResultSet; // Added import
 import java.util.*;
-import java.util.stream.Collectors;
-
-// BankingService is the main business logic layer
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// BankingService is the main business logic layer.
+// It is safe to share between threads: user-scoped operations take the caller's Session, and the
+// shared in-memory state (sessions, loan heap, transaction graph, account cache) is guarded.
+// The methods without a Session parameter act on one implicit session for the desktop GUI.
 public class BankingService {
-    private DatabaseManager dbManager;
-    private User currentUser;
-    private PriorityQueue<LoanApplication> loanHeap; // Min-heap for loan prioritization
+    private final DatabaseManager dbManager;
+    // Live sessions by token; any number of users can be logged in at once
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+    // Sessions unused for this long are logged out (-Dbank.session.idleTimeoutMillis, default 30 minutes)
+    private final long sessionIdleTimeoutMillis = Long.getLong("bank.session.idleTimeoutMillis", 30 * 60_000L);
+    private final ScheduledExecutorService sessionSweeper; // Drops idle sessions nobody presents again
+    private volatile Session currentSession; // The implicit session of the single-user API
+    private final LoanWorkQueue loanQueue; // Pending loans: unclaimed in priority order, or leased to an admin
+    public static final int MAX_LOAN_CLAIM = 100;
+    public static final long MIN_LOAN_LEASE_MILLIS = 1_000;
+    public static final long MAX_LOAN_LEASE_MILLIS = 60 * 60_000;
+    public static final int HIGHEST_PRIORITY_SCORE = 1; // Loans are approved in ascending score order
+    public static final int LOWEST_PRIORITY_SCORE = 10;
+    private static final int ACCOUNT_CACHE_SIZE = 10_000;
+    private final AccountCache accountCache = new AccountCache(ACCOUNT_CACHE_SIZE); // Write-through, see AccountCache
+    private final AccountLockStripes accountLocks = new AccountLockStripes(); // Per-account mutation locks (LOCAL_LOCKS)
+    private final ConcurrencyMode concurrencyMode;
+    private static final int RETRY_MAX_ATTEMPTS = 8;
+    private static final long RETRY_INITIAL_BACKOFF_MILLIS = 2;
+    private static final long RETRY_MAX_BACKOFF_MILLIS = 200;
+    private final AtomicLong optimisticRetries = new AtomicLong();
+    private final LedgerSequencer ledgerSequencer; // Single balance writer; null unless SEQUENCED
 
     // Transaction Graph: Adjacency list representation
-    // Map<SenderUserId, Map<ReceiverUserId, List<Transaction>>>
-    private Map<String, Map<String, List<Transaction>>> transactionGraph;
+    // Map<SenderUserId, Map<ReceiverUserId, List<Transaction>>>; the per-pair lists are synchronized lists
+    private final Map<String, Map<String, List<Transaction>>> transactionGraph;
 
     
     public BankingService(String dbFilePath) {
-        this.dbManager = new DatabaseManager(dbFilePath);
+        this(dbFilePath, DatabaseConfig.fromSystemProperties(), ConcurrencyMode.fromSystemProperties());
+    }
+
+    public BankingService(String dbFilePath, DatabaseConfig dbConfig) {
+        this(dbFilePath, dbConfig, ConcurrencyMode.LOCAL_LOCKS);
+    }
+
+    public BankingService(String dbFilePath, DatabaseConfig dbConfig, ConcurrencyMode concurrencyMode) {
+        this.concurrencyMode = concurrencyMode;
+        this.dbManager = new DatabaseManager(dbFilePath, dbConfig);
         try {
             dbManager.initializeDatabase(); // Ensure database tables exist
         } catch (SQLException e) {
@@ -36,72 +74,178 @@ public class BankingService {
             // Fatal error, propagate or handle appropriately
             throw new RuntimeException("Database initialization failed.", e);
         }
-        this.loanHeap = new PriorityQueue<>(new LoanPriorityComparator());
-        this.transactionGraph = new HashMap<>();
+        this.ledgerSequencer = concurrencyMode == ConcurrencyMode.SEQUENCED ? new LedgerSequencer(dbManager, accountCache) : null;
+        this.loanQueue = new LoanWorkQueue();
+        this.transactionGraph = new ConcurrentHashMap<>();
         loadLoansIntoHeap(); // Load pending loans when application starts
         loadTransactionsIntoGraph(); // Load transaction graph when application starts
+        this.sessionSweeper = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "session-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long sweepMillis = Math.max(1_000, Math.min(sessionIdleTimeoutMillis, 60_000));
+        sessionSweeper.scheduleWithFixedDelay(this::expireIdleSessions, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Releases pooled database connections; call once when the application exits
+    public void shutdown() {
+        sessionSweeper.shutdownNow();
+        if (ledgerSequencer != null) {
+            ledgerSequencer.close(); // Flushes commands already queued
+        }
+        dbManager.close();
+    }
+
+    public AccountCache getAccountCache() {
+        return accountCache;
     }
 
     // --- User Management ---
     public User registerUser(String username, String password, String fullName, boolean isAdmin) throws SQLException, IllegalArgumentException {
-        if (dbManager.getUserByUsername(username) != null) {
-            throw new IllegalArgumentException("Username already exists.");
-        }
         if (password.length() < 6) { // Basic password policy
             throw new IllegalArgumentException("Password must be at least 6 characters long.");
         }
         byte[] salt = PasswordHasher.generateSalt();
         String hashedPassword = PasswordHasher.hashPassword(password, salt);
         User newUser = new User(username, hashedPassword, fullName, isAdmin);
-        dbManager.addUser(newUser, salt);
+        try {
+            dbManager.addUser(newUser, salt); // The UNIQUE index on username is the duplicate check
+        } catch (SQLException e) {
+            if (DatabaseManager.isUniqueViolation(e, "users.username")) {
+                throw new IllegalArgumentException("Username already exists.");
+            }
+            throw e;
+        }
         return newUser;
     }
 
-    public User loginUser(String username, String password) throws Exception {
-        User user = dbManager.getUserByUsername(username);
-        if (user == null) {
+    // Verifies the password and opens a new session; the caller passes it to user-scoped operations
+    public Session login(String username, String password) throws Exception {
+        UserCredentials credentials = dbManager.getUserCredentials(username); // One query for user, hash and salt
+        if (credentials == null) {
             throw new Exception("User not found.");
         }
-        byte[] salt = dbManager.getUserSalt(username);
-        if (salt == null || !PasswordHasher.verifyPassword(password, user.getPasswordHash(), salt)) {
+        User user = credentials.getUser();
+        byte[] salt = credentials.getSalt();
+        if (salt == null || !PasswordHasher.verifyPassword(password, credentials.getPasswordHash(), salt)) {
             throw new Exception("Invalid username or password.");
         }
-        currentUser = user;
-        System.out.println("User logged in: " + currentUser.getUsername());
-        return currentUser;
+        Session session = new Session(user);
+        sessions.put(session.getToken(), session);
+        System.out.println("User logged in: " + user.getUsername());
+        return session;
+    }
+
+    public void logout(Session session) {
+        if (session != null && sessions.remove(session.getToken(), session)) {
+            System.out.println("User logged out: " + session.getUser().getUsername());
+        }
+    }
+
+    // Returns the live session for a token, or null if it is unknown, logged out or expired
+    public Session getSession(String token) {
+        Session session = token == null ? null : sessions.get(token);
+        return session == null || expireIfIdle(session, System.currentTimeMillis()) ? null : session;
+    }
+
+    // Logs out every session idle for longer than the timeout. The desktop GUI's implicit session is
+    // exempt: it lasts as long as the window's login.
+    private void expireIdleSessions() {
+        long now = System.currentTimeMillis();
+        for (Session session : sessions.values()) {
+            expireIfIdle(session, now);
+        }
+    }
+
+    private boolean expireIfIdle(Session session, long nowMillis) {
+        if (session == currentSession || nowMillis - session.getLastAccessMillis() <= sessionIdleTimeoutMillis) {
+            return false;
+        }
+        if (sessions.remove(session.getToken(), session)) {
+            System.out.println("Session expired: " + session.getUser().getUsername());
+        }
+        return true;
+    }
+
+    public int getActiveSessionCount() {
+        return sessions.size();
+    }
+
+    // Single-user API: logs in the implicit session (replacing any previous one)
+    public User loginUser(String username, String password) throws Exception {
+        Session session = login(username, password);
+        Session previous = currentSession;
+        currentSession = session;
+        if (previous != null) {
+            sessions.remove(previous.getToken(), previous);
+        }
+        return session.getUser();
     }
 
     public void logoutUser() {
-        currentUser = null;
+        Session session = currentSession;
+        currentSession = null;
+        if (session != null) {
+            sessions.remove(session.getToken(), session);
+        }
         System.out.println("User logged out.");
     }
 
+    public Session getCurrentSession() {
+        return currentSession;
+    }
+
     public User getCurrentUser() {
-        return currentUser;
+        Session session = currentSession;
+        return session != null ? session.getUser() : null;
     }
 
     public boolean isLoggedIn() {
-        return currentUser != null;
+        return currentSession != null;
     }
 
-    // --- Account Management ---
-    public Account createAccount(Account.AccountType type, BigDecimal initialBalance) throws SQLException, IllegalStateException {
-        if (currentUser == null) {
+    private Session requireSession(Session session) {
+        if (session == null || sessions.get(session.getToken()) != session || expireIfIdle(session, System.currentTimeMillis())) {
             throw new IllegalStateException("No user is currently logged in.");
         }
+        session.touch();
+        return session;
+    }
+
+    private Session requireAdmin(Session session, String action) {
+        if (session == null || !session.isAdmin() || sessions.get(session.getToken()) != session
+                || expireIfIdle(session, System.currentTimeMillis())) {
+            throw new IllegalStateException("Only administrators can " + action + ".");
+        }
+        session.touch();
+        return session;
+    }
+
+    // --- Account Management ---
+    public Account createAccount(Account.AccountType type, BigDecimal initialBalance) throws SQLException, IllegalStateException {
+        return createAccount(currentSession, type, initialBalance);
+    }
+
+    public Account createAccount(Session session, Account.AccountType type, BigDecimal initialBalance) throws SQLException, IllegalStateException {
+        requireSession(session);
         if (initialBalance.compareTo(BigDecimal.ZERO) < 0) {
             throw new IllegalArgumentException("Initial balance cannot be negative.");
         }
-        Account newAccount = new Account(currentUser.getId(), type, initialBalance);
+        Account newAccount = new Account(session.getUserId(), type, initialBalance);
         dbManager.addAccount(newAccount);
+        accountCache.put(newAccount);
+        accountCache.invalidateUser(newAccount.getUserId()); // Also stops an in-flight by-user read from caching a list without it
         return newAccount;
     }
 
     public List<Account> getUserAccounts() throws SQLException, IllegalStateException {
-        if (currentUser == null) {
-            throw new IllegalStateException("No user is currently logged in.");
-        }
-        return dbManager.getAccountsByUserId(currentUser.getId());
+        return getUserAccounts(currentSession);
+    }
+
+    public List<Account> getUserAccounts(Session session) throws SQLException, IllegalStateException {
+        requireSession(session);
+        return getAccountsForUser(session.getUserId());
     }
     
     // New method to get all accounts
@@ -109,204 +253,590 @@ public class BankingService {
         return dbManager.getAllAccounts();
     }
 
-    public void deposit(String accountId, BigDecimal amount) throws SQLException, IllegalArgumentException {
-        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
-            throw new IllegalArgumentException("Deposit amount must be positive.");
+    // Streams every account to the callback without building a list (e.g. to fill a combo box)
+    public void forEachAccount(RowCallback<Account> callback) throws SQLException {
+        dbManager.forEachAccount(callback);
+    }
+
+    // Accounts owned by a specific user; served from the account cache when possible,
+    // otherwise an index lookup (not a full scan) whose result is cached
+    public List<Account> getAccountsForUser(String userId) throws SQLException {
+        if (!cacheServesReads()) {
+            return dbManager.getAccountsByUserId(userId);
         }
-        Account account = dbManager.getAccountById(accountId);
-        if (account == null) {
-            throw new IllegalArgumentException("Account not found.");
+        long generation = accountCache.userListGeneration(); // Before the read, see AccountCache
+        List<Account> accounts = accountCache.getByUser(userId);
+        if (accounts == null) {
+            accounts = dbManager.getAccountsByUserId(userId);
+            accountCache.putUserAccounts(userId, accounts, generation);
+        }
+        return accounts;
+    }
+
+    // Single account lookup through the cache
+    public Account getAccount(String accountId) throws SQLException {
+        if (!cacheServesReads()) {
+            return dbManager.getAccountById(accountId);
         }
-        if (!account.getUserId().equals(currentUser.getId())) {
-             throw new IllegalArgumentException("Account does not belong to the current user.");
+        Account account = accountCache.get(accountId);
+        if (account == null) {
+            account = dbManager.getAccountById(accountId);
+            if (account != null) {
+                accountCache.put(account);
+            }
         }
+        return account;
+    }
+
+    public void deposit(String accountId, BigDecimal amount) throws SQLException, IllegalArgumentException {
+        deposit(currentSession, accountId, amount);
+    }
 
-        BigDecimal newBalance = account.getBalance().add(amount);
-        dbManager.updateAccountBalance(accountId, newBalance);
-        dbManager.addTransaction(new Transaction(accountId, null, amount, Transaction.TransactionType.DEPOSIT, "Deposit"));
+    public void deposit(Session session, String accountId, BigDecimal amount) throws SQLException, IllegalArgumentException {
+        if (ledgerSequencer != null) {
+            await(depositAsync(session, accountId, amount));
+            System.out.println("Deposited " + amount + " to account " + accountId);
+            return;
+        }
+        requireSession(session);
+        long amountMinor = positiveMinorUnits(amount, "Deposit amount must be positive."); // Converted once; the rest is long arithmetic
+        // Ownership check, conditional balance update and ledger entry commit together
+        mutateAccounts(accountId, null, () -> {
+            Account committed = dbManager.inTransaction(uow -> {
+                Account account = requireOwnedAccount(uow, accountId, session, "Account does not belong to the current user.");
+                applyDelta(uow, account, amountMinor, "Account not found.");
+                uow.addTransaction(new Transaction(accountId, null, amountMinor, Transaction.TransactionType.DEPOSIT, "Deposit"));
+                return account;
+            });
+            accountCache.put(committed); // Write-through once committed
+            return null;
+        });
         System.out.println("Deposited " + amount + " to account " + accountId);
     }
 
     public void withdraw(String accountId, BigDecimal amount) throws SQLException, IllegalArgumentException {
+        withdraw(currentSession, accountId, amount);
+    }
+
+    public void withdraw(Session session, String accountId, BigDecimal amount) throws SQLException, IllegalArgumentException {
+        if (ledgerSequencer != null) {
+            await(withdrawAsync(session, accountId, amount));
+            System.out.println("Withdrew " + amount + " from account " + accountId);
+            return;
+        }
+        requireSession(session);
+        long amountMinor = positiveMinorUnits(amount, "Withdrawal amount must be positive.");
+        mutateAccounts(accountId, null, () -> {
+            Account committed = dbManager.inTransaction(uow -> {
+                Account account = requireOwnedAccount(uow, accountId, session, "Account does not belong to the current user.");
+                applyDelta(uow, account, -amountMinor, "Insufficient funds.");
+                uow.addTransaction(new Transaction(accountId, null, amountMinor, Transaction.TransactionType.WITHDRAWAL, "Withdrawal"));
+                return account;
+            });
+            accountCache.put(committed);
+            return null;
+        });
+        System.out.println("Withdrew " + amount + " from account " + accountId);
+    }
+
+    public void transferFunds(String fromAccountId, String toAccountId, BigDecimal amount) throws SQLException, IllegalArgumentException {
+        transferFunds(currentSession, fromAccountId, toAccountId, amount);
+    }
+
+    public void transferFunds(Session session, String fromAccountId, String toAccountId, BigDecimal amount) throws SQLException, IllegalArgumentException {
+        if (ledgerSequencer != null) {
+            await(transferFundsAsync(session, fromAccountId, toAccountId, amount));
+            System.out.println("Transferred " + amount + " from " + fromAccountId + " to " + toAccountId);
+            return;
+        }
+        long amountMinor = validateTransfer(session, fromAccountId, toAccountId, amount);
+
+        Transaction outgoing = new Transaction(fromAccountId, toAccountId, amountMinor, Transaction.TransactionType.TRANSFER_OUT, "Transfer to " + toAccountId);
+        Transaction incoming = new Transaction(toAccountId, fromAccountId, amountMinor, Transaction.TransactionType.TRANSFER_IN, "Transfer from " + fromAccountId);
+
+        // Both balance updates and both ledger entries commit together (or not at all)
+        String receiverUserId = mutateAccounts(fromAccountId, toAccountId, () -> {
+            Account[] committed = dbManager.inTransaction(uow -> {
+                Account fromAccount = uow.getAccountById(fromAccountId);
+                Account toAccount = uow.getAccountById(toAccountId);
+
+                if (fromAccount == null || toAccount == null) {
+                    throw new IllegalArgumentException("One or both accounts not found.");
+                }
+                if (!fromAccount.getUserId().equals(session.getUserId())) {
+                    throw new IllegalArgumentException("Source account does not belong to the current user.");
+                }
+
+                // Perform transfers; the debit is refused by the database if it would overdraw
+                applyDelta(uow, fromAccount, -amountMinor, "Insufficient funds in source account.");
+                applyDelta(uow, toAccount, amountMinor, "Destination account not found.");
+
+                // Log transactions
+                uow.addTransaction(outgoing);
+                uow.addTransaction(incoming);
+                return new Account[] { fromAccount, toAccount };
+            });
+            accountCache.put(committed[0]);
+            accountCache.put(committed[1]);
+            return committed[1].getUserId();
+        });
+
+        // Graph is updated once the transfer is committed
+        addToTransactionGraph(session.getUserId(), receiverUserId, amountMinor, outgoing.getTimestampMillis());
+
+        System.out.println("Transferred " + amount + " from " + fromAccountId + " to " + toAccountId);
+    }
+
+    private long validateTransfer(Session session, String fromAccountId, String toAccountId, BigDecimal amount) {
+        requireSession(session);
+        long amountMinor = positiveMinorUnits(amount, "Transfer amount must be positive.");
+        if (fromAccountId.equals(toAccountId)) {
+            throw new IllegalArgumentException("Cannot transfer to the same account.");
+        }
+        return amountMinor;
+    }
+
+    private static long positiveMinorUnits(BigDecimal amount, String message) {
         if (amount.compareTo(BigDecimal.ZERO) <= 0) {
-            throw new IllegalArgumentException("Withdrawal amount must be positive.");
+            throw new IllegalArgumentException(message);
         }
-        Account account = dbManager.getAccountById(accountId);
-        if (account == null) {
-            throw new IllegalArgumentException("Account not found.");
+        return Money.toMinorUnits(amount);
+    }
+
+    // --- Asynchronous balance changes ---
+    // In SEQUENCED mode these return once the command is queued for the ledger writer; the future
+    // completes when its batch has committed, or fails with the exception the synchronous method
+    // would throw. In the other modes they run the synchronous method and return a completed future.
+    public CompletableFuture<Void> depositAsync(Session session, String accountId, BigDecimal amount) {
+        if (ledgerSequencer == null) {
+            return completedBy(() -> { deposit(session, accountId, amount); return null; });
         }
-        if (!account.getUserId().equals(currentUser.getId())) {
-            throw new IllegalArgumentException("Account does not belong to the current user.");
+        try {
+            requireSession(session);
+            long amountMinor = positiveMinorUnits(amount, "Deposit amount must be positive.");
+            return ledgerSequencer.deposit(session.getUserId(), accountId, amountMinor).thenApply(accounts -> null);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
         }
-        if (account.getBalance().compareTo(amount) < 0) {
-            throw new IllegalArgumentException("Insufficient funds.");
+    }
+
+    public CompletableFuture<Void> withdrawAsync(Session session, String accountId, BigDecimal amount) {
+        if (ledgerSequencer == null) {
+            return completedBy(() -> { withdraw(session, accountId, amount); return null; });
         }
+        try {
+            requireSession(session);
+            long amountMinor = positiveMinorUnits(amount, "Withdrawal amount must be positive.");
+            return ledgerSequencer.withdraw(session.getUserId(), accountId, amountMinor).thenApply(accounts -> null);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
 
-        BigDecimal newBalance = account.getBalance().subtract(amount);
-        dbManager.updateAccountBalance(accountId, newBalance);
-        dbManager.addTransaction(new Transaction(accountId, null, amount, Transaction.TransactionType.WITHDRAWAL, "Withdrawal"));
-        System.out.println("Withdrew " + amount + " from account " + accountId);
+    public CompletableFuture<Void> transferFundsAsync(Session session, String fromAccountId, String toAccountId, BigDecimal amount) {
+        if (ledgerSequencer == null) {
+            return completedBy(() -> { transferFunds(session, fromAccountId, toAccountId, amount); return null; });
+        }
+        try {
+            long amountMinor = validateTransfer(session, fromAccountId, toAccountId, amount);
+            long requestedAt = Timestamps.nowMillis();
+            return ledgerSequencer.transfer(session.getUserId(), fromAccountId, toAccountId, amountMinor)
+                    .thenAccept(accounts -> addToTransactionGraph(session.getUserId(), accounts.get(1).getUserId(), amountMinor, requestedAt));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
     }
 
-    public void transferFunds(String fromAccountId, String toAccountId, BigDecimal amount) throws SQLException, IllegalArgumentException {
-        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
-            throw new IllegalArgumentException("Transfer amount must be positive.");
+    public CompletableFuture<LoanApplication> approveLoanAsync(Session session, String loanId, String recipientAccountId) {
+        if (ledgerSequencer == null) {
+            return completedBy(() -> approveLoan(session, loanId, recipientAccountId));
         }
-        if (fromAccountId.equals(toAccountId)) {
-            throw new IllegalArgumentException("Cannot transfer to the same account.");
+        LoanApplication loan;
+        try {
+            requireAdmin(session, "approve loans");
+            loan = takePendingLoan(session, loanId); // Refuses a loan leased to another admin
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (loan == null) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Loan application not found in pending queue or already processed."));
+        }
+        return ledgerSequencer.approveLoan(loan, recipientAccountId, session.getUserId()).handle((accounts, failure) -> {
+            if (failure != null) {
+                restorePendingLoan(loan); // Nothing was committed here
+                throw failure instanceof CompletionException ? (CompletionException) failure : new CompletionException(failure);
+            }
+            loan.setStatus(LoanApplication.LoanStatus.APPROVED);
+            loan.clearLease();
+            return loan;
+        });
+    }
+
+    private static <T> CompletableFuture<T> completedBy(AccountLockStripes.LockedAction<T> action) {
+        try {
+            return CompletableFuture.completedFuture(action.run());
+        } catch (SQLException | RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
         }
+    }
 
-        Account fromAccount = dbManager.getAccountById(fromAccountId);
-        Account toAccount = dbManager.getAccountById(toAccountId);
+    // Waits for a sequenced command and rethrows its failure as the synchronous API would
+    private static <T> T await(CompletableFuture<T> future) throws SQLException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for the ledger writer.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new SQLException("Ledger command failed.", cause);
+        }
+    }
+
+    // --- Balance mutation plumbing ---
+    // Runs a balance mutation under the configured ConcurrencyMode: inside the accounts' lock stripes
+    // (LOCAL_LOCKS), or lock-free with retries while another connection holds the database (OPTIMISTIC).
+    // secondAccountId may be null for single-account operations.
+    private <T> T mutateAccounts(String firstAccountId, String secondAccountId, AccountLockStripes.LockedAction<T> action) throws SQLException {
+        if (concurrencyMode == ConcurrencyMode.OPTIMISTIC) {
+            return withRetry(action);
+        }
+        return secondAccountId == null
+                ? accountLocks.withLock(firstAccountId, action)
+                : accountLocks.withLocks(firstAccountId, secondAccountId, action);
+    }
 
-        if (fromAccount == null || toAccount == null) {
-            throw new IllegalArgumentException("One or both accounts not found.");
+    private <T> T withRetry(AccountLockStripes.LockedAction<T> action) throws SQLException {
+        long backoffMillis = RETRY_INITIAL_BACKOFF_MILLIS;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.run();
+            } catch (SQLException e) {
+                if (attempt >= RETRY_MAX_ATTEMPTS || !DatabaseManager.isBusy(e)) {
+                    throw e;
+                }
+            }
+            optimisticRetries.incrementAndGet();
+            try {
+                // Full jitter, so processes that collided do not retry in lockstep
+                Thread.sleep(ThreadLocalRandom.current().nextLong(1, backoffMillis + 1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while retrying a balance update.", e);
+            }
+            backoffMillis = Math.min(backoffMillis * 2, RETRY_MAX_BACKOFF_MILLIS);
         }
-        if (!fromAccount.getUserId().equals(currentUser.getId())) {
-            throw new IllegalArgumentException("Source account does not belong to the current user.");
+    }
+
+    private Account requireOwnedAccount(UnitOfWork uow, String accountId, Session session, String notOwnedMessage) throws SQLException {
+        Account account = uow.getAccountById(accountId);
+        if (account == null) {
+            throw new IllegalArgumentException("Account not found.");
         }
-        if (fromAccount.getBalance().compareTo(amount) < 0) {
-            throw new IllegalArgumentException("Insufficient funds in source account.");
+        if (!account.getUserId().equals(session.getUserId())) {
+            throw new IllegalArgumentException(notOwnedMessage);
         }
+        return account;
+    }
 
-        // Perform transfers
-        dbManager.updateAccountBalance(fromAccountId, fromAccount.getBalance().subtract(amount));
-        dbManager.updateAccountBalance(toAccountId, toAccount.getBalance().add(amount));
+    // Applies the conditional delta update and mirrors it onto the account read in this transaction
+    private void applyDelta(UnitOfWork uow, Account account, long deltaMinor, String refusedMessage) throws SQLException {
+        if (!uow.applyBalanceDelta(account.getId(), deltaMinor)) {
+            throw new IllegalArgumentException(refusedMessage);
+        }
+        account.setBalanceMinor(Money.add(account.getBalanceMinor(), deltaMinor));
+        account.setVersion(account.getVersion() + 1);
+    }
 
-        // Log transactions
-        Transaction outgoing = new Transaction(fromAccountId, toAccountId, amount, Transaction.TransactionType.TRANSFER_OUT, "Transfer to " + toAccount.getId());
-        Transaction incoming = new Transaction(toAccountId, fromAccountId, amount, Transaction.TransactionType.TRANSFER_IN, "Transfer from " + fromAccount.getId());
-        dbManager.addTransaction(outgoing);
-        dbManager.addTransaction(incoming);
+    // The cache only sees this JVM's commits. In OPTIMISTIC mode other processes write the same file,
+    // so cached balances could be stale indefinitely; reads go to the database instead.
+    private boolean cacheServesReads() {
+        return concurrencyMode != ConcurrencyMode.OPTIMISTIC;
+    }
 
-        // Add to graph
-        addToTransactionGraph(fromAccount.getUserId(), toAccount.getUserId(), amount, outgoing.getTimestamp());
+    public ConcurrencyMode getConcurrencyMode() {
+        return concurrencyMode;
+    }
 
-        System.out.println("Transferred " + amount + " from " + fromAccountId + " to " + toAccountId);
+    // Number of balance mutations retried because the database was busy (OPTIMISTIC mode)
+    public long getOptimisticRetryCount() {
+        return optimisticRetries.get();
+    }
+
+    // The single balance writer in SEQUENCED mode (for its batch statistics), otherwise null
+    public LedgerSequencer getLedgerSequencer() {
+        return ledgerSequencer;
     }
 
     public List<Transaction> getAccountTransactions(String accountId) throws SQLException {
         return dbManager.getTransactionsByAccountId(accountId);
     }
 
+    // Returns one page of an account's history, newest first; pass null for the first page
+    public TransactionPage getAccountTransactionsPage(String accountId, TransactionPage.Cursor after, int pageSize) throws SQLException {
+        return dbManager.getTransactionsPage(accountId, after, pageSize);
+    }
+
     // --- Loan Prioritization (Heap) ---
     private void loadLoansIntoHeap() {
         try {
             List<LoanApplication> pendingLoans = dbManager.getLoanApplicationsByStatus(LoanApplication.LoanStatus.PENDING);
-            loanHeap.clear();
-            for (LoanApplication loan : pendingLoans) {
-                loanHeap.offer(loan); // Add to min-heap
-            }
-            System.out.println("Loaded " + loanHeap.size() + " pending loans into heap.");
+            loanQueue.load(pendingLoans, Timestamps.nowMillis()); // Persisted leases that are still valid stay with their admin
+            System.out.println("Loaded " + loanQueue.unclaimedCount() + " pending loans into heap, " + loanQueue.leasedCount() + " leased.");
         } catch (SQLException e) {
             System.err.println("Error loading pending loans into heap: " + e.getMessage());
         }
     }
 
     public LoanApplication applyForLoan(BigDecimal amount, String reason, int priorityScore) throws SQLException, IllegalStateException {
-        if (currentUser == null) {
-            throw new IllegalStateException("No user is currently logged in.");
-        }
+        return applyForLoan(currentSession, amount, reason, priorityScore);
+    }
+
+    public LoanApplication applyForLoan(Session session, BigDecimal amount, String reason, int priorityScore) throws SQLException, IllegalStateException {
+        requireSession(session);
         if (amount.compareTo(BigDecimal.ZERO) <= 0) {
             throw new IllegalArgumentException("Loan amount must be positive.");
         }
-        LoanApplication newLoan = new LoanApplication(currentUser.getId(), amount, reason, priorityScore);
+        checkPriorityScore(priorityScore);
+        LoanApplication newLoan = new LoanApplication(session.getUserId(), amount, reason, priorityScore);
         dbManager.addLoanApplication(newLoan);
-        loanHeap.offer(newLoan); // Add to heap immediately
+        loanQueue.offer(newLoan); // Add to heap immediately
         return newLoan;
     }
 
     public LoanApplication getNextLoanForApproval() throws IllegalStateException {
-        if (currentUser == null || !currentUser.isAdmin()) {
-            throw new IllegalStateException("Only administrators can approve loans.");
+        return getNextLoanForApproval(currentSession);
+    }
+
+    public LoanApplication getNextLoanForApproval(Session session) throws IllegalStateException {
+        requireAdmin(session, "approve loans");
+        return loanQueue.peek(Timestamps.nowMillis()); // Highest priority unclaimed loan, without removing it
+    }
+
+    // Removes a pending loan from the queue (O(log n)) for this admin to decide; of several concurrent
+    // callers only one gets it. A loan leased to another admin is refused until that lease expires.
+    private LoanApplication takePendingLoan(Session session, String loanId) {
+        return loanQueue.take(loanId, session.getUserId(), Timestamps.nowMillis());
+    }
+
+    // Puts a taken loan back in the queue after its decision failed to commit. A loan that another
+    // process decided meanwhile is dropped instead, and a lease taken there is adopted so this process
+    // honours it too; if the database cannot be read the loan is kept as it was.
+    private void restorePendingLoan(LoanApplication loan) {
+        try {
+            LoanApplication stored = dbManager.getLoanApplicationById(loan.getId());
+            if (stored == null || stored.getStatus() != LoanApplication.LoanStatus.PENDING) {
+                return;
+            }
+            loan.setLease(stored.getLeaseOwnerId(), stored.getLeaseExpiresAtMillis());
+        } catch (SQLException e) {
+            System.err.println("Could not re-check loan " + loan.getId() + ": " + e.getMessage());
         }
-        return loanHeap.peek(); // Get highest priority (lowest score) without removing
+        loanQueue.restore(loan, Timestamps.nowMillis());
+    }
+
+    // --- Loan work queue (leases) ---
+    // Several admins can review loans at once: each claims a batch of the highest-priority unclaimed
+    // loans for a limited time, and the batches never overlap. Leases are persisted, so they survive a
+    // restart; a lease that runs out (admin gone, or too slow) puts its loan back in the queue.
+
+    // Leases up to count of the highest-priority unclaimed loans to this admin for leaseMillis, best first
+    public List<LoanApplication> claimLoans(Session session, int count, long leaseMillis) throws SQLException {
+        requireAdmin(session, "claim loans");
+        if (count < 1 || count > MAX_LOAN_CLAIM) {
+            throw new IllegalArgumentException("Claim between 1 and " + MAX_LOAN_CLAIM + " loans at a time.");
+        }
+        long now = Timestamps.nowMillis();
+        List<LoanApplication> claimed = loanQueue.claim(session.getUserId(), count, now, now + checkLeaseMillis(leaseMillis));
+        if (claimed.isEmpty()) {
+            return claimed;
+        }
+        try {
+            dbManager.updateLoanLeases(claimed);
+        } catch (SQLException | RuntimeException e) {
+            releaseLeases(session, claimed); // Not persisted, so not handed out either
+            throw e;
+        }
+        return claimed;
+    }
+
+    // Extends all of this admin's live leases to leaseMillis from now; returns the renewed loans
+    public List<LoanApplication> renewLoanLeases(Session session, long leaseMillis) throws SQLException {
+        requireAdmin(session, "claim loans");
+        long now = Timestamps.nowMillis();
+        List<LoanApplication> renewed = loanQueue.renew(session.getUserId(), now, now + checkLeaseMillis(leaseMillis));
+        if (!renewed.isEmpty()) {
+            dbManager.updateLoanLeases(renewed);
+        }
+        return renewed;
+    }
+
+    // Hands this admin's leased loans among loanIds back to the queue; returns the released loans
+    public List<LoanApplication> releaseLoans(Session session, Collection<String> loanIds) throws SQLException {
+        requireAdmin(session, "claim loans");
+        List<LoanApplication> released = loanQueue.release(session.getUserId(), loanIds, Timestamps.nowMillis());
+        if (!released.isEmpty()) {
+            dbManager.updateLoanLeases(released);
+        }
+        return released;
+    }
+
+    // This admin's live leases, soonest expiry first
+    public List<LoanApplication> getLeasedLoans(Session session) {
+        requireAdmin(session, "claim loans");
+        return loanQueue.leasedTo(session.getUserId(), Timestamps.nowMillis());
+    }
+
+    private void releaseLeases(Session session, List<LoanApplication> loans) {
+        List<String> loanIds = new ArrayList<>(loans.size());
+        for (LoanApplication loan : loans) {
+            loanIds.add(loan.getId());
+        }
+        loanQueue.release(session.getUserId(), loanIds, Timestamps.nowMillis());
+    }
+
+    private static void checkPriorityScore(int priorityScore) {
+        if (priorityScore < HIGHEST_PRIORITY_SCORE || priorityScore > LOWEST_PRIORITY_SCORE) {
+            throw new IllegalArgumentException("Priority score must be between " + HIGHEST_PRIORITY_SCORE +
+                                               " and " + LOWEST_PRIORITY_SCORE + ".");
+        }
+    }
+
+    private static long checkLeaseMillis(long leaseMillis) {
+        if (leaseMillis < MIN_LOAN_LEASE_MILLIS || leaseMillis > MAX_LOAN_LEASE_MILLIS) {
+            throw new IllegalArgumentException("Lease duration must be between " + MIN_LOAN_LEASE_MILLIS / 1000 +
+                                               " and " + MAX_LOAN_LEASE_MILLIS / 1000 + " seconds.");
+        }
+        return leaseMillis;
     }
 
     public LoanApplication approveLoan(String loanId, String recipientAccountId) throws SQLException, IllegalStateException, IllegalArgumentException {
-        if (currentUser == null || !currentUser.isAdmin()) {
-            throw new IllegalStateException("Only administrators can approve loans.");
-        }
-
-        LoanApplication loanToApprove = null;
-        // Find and remove the loan from the heap
-        Iterator<LoanApplication> it = loanHeap.iterator();
-        while (it.hasNext()) {
-            LoanApplication loan = it.next();
-            if (loan.getId().equals(loanId)) {
-                loanToApprove = loan;
-                it.remove(); // Remove from heap
-                break;
-            }
+        return approveLoan(currentSession, loanId, recipientAccountId);
+    }
+
+    public LoanApplication approveLoan(Session session, String loanId, String recipientAccountId) throws SQLException, IllegalStateException, IllegalArgumentException {
+        if (ledgerSequencer != null) {
+            LoanApplication approved = await(approveLoanAsync(session, loanId, recipientAccountId));
+            System.out.println("Loan " + loanId + " approved for user " + approved.getUserId());
+            return approved;
         }
+        requireAdmin(session, "approve loans");
 
+        LoanApplication loanToApprove = takePendingLoan(session, loanId);
         if (loanToApprove == null) {
             throw new IllegalArgumentException("Loan application not found in pending queue or already processed.");
         }
         
-        Account recipientAccount = dbManager.getAccountById(recipientAccountId);
-        if (recipientAccount == null) {
-            throw new IllegalArgumentException("Recipient account for loan approval not found.");
-        }
-        if (!recipientAccount.getUserId().equals(loanToApprove.getUserId())) {
-            throw new IllegalArgumentException("Recipient account does not belong to the loan applicant.");
-        }
+        LoanApplication loan = loanToApprove;
+        try {
+            // Status change, disbursement and ledger entry commit together
+            mutateAccounts(recipientAccountId, null, () -> {
+                Account committed = dbManager.inTransaction(uow -> {
+                    Account recipientAccount = uow.getAccountById(recipientAccountId);
+                    if (recipientAccount == null) {
+                        throw new IllegalArgumentException("Recipient account for loan approval not found.");
+                    }
+                    if (!recipientAccount.getUserId().equals(loan.getUserId())) {
+                        throw new IllegalArgumentException("Recipient account does not belong to the loan applicant.");
+                    }
 
-        // Update loan status in DB
-        dbManager.updateLoanApplicationStatus(loanId, LoanApplication.LoanStatus.APPROVED);
+                    // Update loan status in DB
+                    uow.updateLoanApplicationStatus(loanId, LoanApplication.LoanStatus.APPROVED, session.getUserId(), Timestamps.nowMillis());
 
-        // Deposit loan amount to user's account
-        BigDecimal newBalance = recipientAccount.getBalance().add(loanToApprove.getAmount());
-        dbManager.updateAccountBalance(recipientAccountId, newBalance);
-        dbManager.addTransaction(new Transaction(recipientAccountId, null, loanToApprove.getAmount(), Transaction.TransactionType.DEPOSIT, "Loan Approved: " + loanToApprove.getId()));
+                    // Deposit loan amount to user's account
+                    applyDelta(uow, recipientAccount, loan.getAmountMinor(), "Recipient account for loan approval not found.");
+                    uow.addTransaction(new Transaction(recipientAccountId, null, loan.getAmountMinor(), Transaction.TransactionType.DEPOSIT, "Loan Approved: " + loan.getId()));
+                    return recipientAccount;
+                });
+                accountCache.put(committed);
+                return null;
+            });
+        } catch (SQLException | RuntimeException e) {
+            restorePendingLoan(loan); // Nothing was committed here
+            throw e;
+        }
 
+        loanToApprove.setStatus(LoanApplication.LoanStatus.APPROVED); // Callers see the committed status
+        loanToApprove.clearLease();
         System.out.println("Loan " + loanId + " approved for user " + loanToApprove.getUserId());
         return loanToApprove;
     }
 
     public LoanApplication rejectLoan(String loanId) throws SQLException, IllegalStateException, IllegalArgumentException {
-        if (currentUser == null || !currentUser.isAdmin()) {
-            throw new IllegalStateException("Only administrators can reject loans.");
-        }
-
-        LoanApplication loanToReject = null;
-        // Find and remove the loan from the heap
-        Iterator<LoanApplication> it = loanHeap.iterator();
-        while (it.hasNext()) {
-            LoanApplication loan = it.next();
-            if (loan.getId().equals(loanId)) {
-                loanToReject = loan;
-                it.remove(); // Remove from heap
-                break;
-            }
-        }
+        return rejectLoan(currentSession, loanId);
+    }
+
+    public LoanApplication rejectLoan(Session session, String loanId) throws SQLException, IllegalStateException, IllegalArgumentException {
+        requireAdmin(session, "reject loans");
 
+        LoanApplication loanToReject = takePendingLoan(session, loanId);
         if (loanToReject == null) {
             throw new IllegalArgumentException("Loan application not found in pending queue or already processed.");
         }
 
-        // Update loan status in DB
-        dbManager.updateLoanApplicationStatus(loanId, LoanApplication.LoanStatus.REJECTED);
+        // Update loan status in DB; fails if another process decided the loan first
+        try {
+            dbManager.inTransaction(uow -> {
+                uow.updateLoanApplicationStatus(loanId, LoanApplication.LoanStatus.REJECTED, session.getUserId(), Timestamps.nowMillis());
+                return null;
+            });
+        } catch (SQLException | RuntimeException e) {
+            restorePendingLoan(loanToReject);
+            throw e;
+        }
+        loanToReject.setStatus(LoanApplication.LoanStatus.REJECTED);
+        loanToReject.clearLease();
         System.out.println("Loan " + loanId + " rejected for user " + loanToReject.getUserId());
         return loanToReject;
     }
 
+    // Unclaimed pending loans in approval order (highest priority first), read from the heap without changing it
     public List<LoanApplication> getPendingLoans() {
-        // Return a copy of the heap's elements for display without affecting the heap itself
-        return new ArrayList<>(loanHeap);
+        return loanQueue.sorted(Timestamps.nowMillis());
+    }
+
+    // The first limit unclaimed pending loans in approval order; costs O(limit log limit), not a full sort
+    public List<LoanApplication> getPendingLoans(int limit) {
+        return loanQueue.top(limit, Timestamps.nowMillis());
+    }
+
+    public List<LoanApplication> getPendingLoans(Session session, int limit) {
+        requireAdmin(session, "view pending loans");
+        return getPendingLoans(limit);
+    }
+
+    public LoanApplication reprioritizeLoan(String loanId, int newPriorityScore) throws SQLException {
+        return reprioritizeLoan(currentSession, loanId, newPriorityScore);
+    }
+
+    // Changes a pending loan's priority score in the database and moves it within the heap (O(log n))
+    public LoanApplication reprioritizeLoan(Session session, String loanId, int newPriorityScore) throws SQLException {
+        requireAdmin(session, "reprioritize loans");
+        checkPriorityScore(newPriorityScore);
+        LoanApplication updated = dbManager.updateLoanPriority(loanId, newPriorityScore); // Only matches while still PENDING
+        if (updated == null) {
+            throw new IllegalArgumentException("Loan application not found in pending queue or already processed.");
+        }
+        // The queued instance, or null if another admin took the loan for a decision meanwhile; then
+        // the row this update returned is the answer (the decision may still commit or be rolled back)
+        LoanApplication queued = loanQueue.updatePriority(loanId, newPriorityScore);
+        return queued != null ? queued : updated;
     }
     
     public List<LoanApplication> getLoansByUserId(String userId) throws SQLException {
+        return getLoansByUserId(userId, -1);
+    }
+
+    // A user's most recent loans, newest first (limit < 0 returns all of them)
+    public List<LoanApplication> getLoansByUserId(String userId, int limit) throws SQLException {
         try {
-            List<LoanApplication> allLoans = new ArrayList<>();
-            allLoans.addAll(dbManager.getLoanApplicationsByStatus(LoanApplication.LoanStatus.PENDING));
-            allLoans.addAll(dbManager.getLoanApplicationsByStatus(LoanApplication.LoanStatus.APPROVED));
-            allLoans.addAll(dbManager.getLoanApplicationsByStatus(LoanApplication.LoanStatus.REJECTED));
-            
-            return allLoans.stream()
-                            .filter(loan -> loan.getUserId().equals(userId))
-                            .sorted(Comparator.comparing(LoanApplication::getApplicationDate).reversed())
-                            .collect(Collectors.toList());
+            return dbManager.getLoanApplicationsByUserId(userId, limit);
         } catch (SQLException e) {
             throw new SQLException("Error retrieving loans for user: " + e.getMessage(), e);
         }
@@ -317,28 +847,20 @@ public class BankingService {
     private void loadTransactionsIntoGraph() {
         transactionGraph.clear();
         try {
-            List<Transaction> allTransactions = dbManager.getAllTransactions();
-            for (Transaction t : allTransactions) {
-                if (t.getType() == Transaction.TransactionType.TRANSFER_OUT && t.getCounterpartyAccountId() != null) {
-                    Account senderAccount = dbManager.getAccountById(t.getAccountId());
-                    Account receiverAccount = dbManager.getAccountById(t.getCounterpartyAccountId());
-
-                    if (senderAccount != null && receiverAccount != null) {
-                        addToTransactionGraph(senderAccount.getUserId(), receiverAccount.getUserId(), t.getAmount(), t.getTimestamp());
-                    }
-                }
-            }
+            // One joined query resolves both users of every transfer; edges go straight into the graph
+            dbManager.forEachTransferEdge(edge ->
+                    addToTransactionGraph(edge.getSenderUserId(), edge.getReceiverUserId(), edge.getAmountMinor(), edge.getTimestampMillis()));
             System.out.println("Transaction graph loaded with " + transactionGraph.size() + " unique sender/receiver pairs.");
         } catch (SQLException e) {
             System.err.println("Error loading transactions into graph: " + e.getMessage());
         }
     }
 
-    private void addToTransactionGraph(String senderUserId, String receiverUserId, BigDecimal amount, LocalDateTime timestamp) {
+    private void addToTransactionGraph(String senderUserId, String receiverUserId, long amountMinor, long timestampMillis) {
         transactionGraph
-            .computeIfAbsent(senderUserId, k -> new HashMap<>())
-            .computeIfAbsent(receiverUserId, k -> new ArrayList<>())
-            .add(new Transaction(senderUserId, receiverUserId, amount, Transaction.TransactionType.TRANSFER_OUT, "Graph Transfer")); // Simplified for graph, actual transaction details stored in DB
+            .computeIfAbsent(senderUserId, k -> new ConcurrentHashMap<>())
+            .computeIfAbsent(receiverUserId, k -> Collections.synchronizedList(new ArrayList<>()))
+            .add(new Transaction(IdGenerator.generateUniqueId(), senderUserId, receiverUserId, amountMinor, Transaction.TransactionType.TRANSFER_OUT, timestampMillis, "Graph Transfer")); // Simplified for graph, actual transaction details stored in DB
     }
     
     // Retrieves a summarized transaction graph for display
@@ -347,16 +869,7 @@ public class BankingService {
         Map<String, Map<String, List<String>>> summarizedGraph = new HashMap<>();
         
         // Fetch all users to map IDs to usernames
-        Map<String, String> userIdToUsernameMap = new HashMap<>();
-        try (Connection conn = dbManager.openConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery("SELECT id, username FROM users")) {
-            while (rs.next()) {
-                userIdToUsernameMap.put(rs.getString("id"), rs.getString("username"));
-            }
-        } finally {
-            dbManager.closeConnection(); // Ensure connection is closed
-        }
+        Map<String, String> userIdToUsernameMap = dbManager.getUsernamesById();
 
         for (Map.Entry<String, Map<String, List<Transaction>>> senderEntry : transactionGraph.entrySet()) {
             String senderUserId = senderEntry.getKey();
@@ -367,8 +880,11 @@ public class BankingService {
                 String receiverUsername = userIdToUsernameMap.getOrDefault(receiverUserId, "Unknown User (ID: " + receiverUserId + ")");
                 
                 List<String> transactionStrings = new ArrayList<>();
-                for (Transaction t : receiverEntry.getValue()) {
-                    transactionStrings.add(String.format("Amount: %.2f (at %s)", t.getAmount(), t.getTimestamp().format(DateTimeFormatter.ofPattern("HH:mm"))));
+                List<Transaction> transfers = receiverEntry.getValue();
+                synchronized (transfers) { // Transfers may be appended concurrently
+                    for (Transaction t : transfers) {
+                        transactionStrings.add(String.format("Amount: %.2f (at %s)", t.getAmount(), t.getTimestamp().format(DateTimeFormatter.ofPattern("HH:mm"))));
+                    }
                 }
 
                 summarizedGraph
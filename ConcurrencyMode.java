@@ -0,0 +1,21 @@
+// --- 39. service/ConcurrencyMode.java ---
+package service;
+
+// ConcurrencyMode selects how BankingService keeps concurrent balance changes consistent.
+// The first two write balances with conditional delta UPDATEs and differ in what surrounds them;
+// SEQUENCED funnels every balance change through one writer thread (see LedgerSequencer).
+// OPTIMISTIC needs no version compare-and-set: "balance = balance + d WHERE balance + d >= 0" is
+// itself the atomic check-and-write, so a concurrent writer cannot be lost; the only conflict left
+// is SQLITE_BUSY, which is retried. The accounts.version counter orders cached copies (AccountCache)
+// and is not part of any WHERE clause. Reads bypass the account cache in this mode.
+public enum ConcurrencyMode {
+    LOCAL_LOCKS, // Per-account stripe locks in this JVM (one process owns the database file)
+    OPTIMISTIC,  // No JVM locks; busy/locked conflicts retry with bounded backoff (several processes share the file)
+    SEQUENCED;   // Ring buffer + single writer with group commit (this JVM is the only writer of balances)
+
+    // Reads -Dbank.concurrency=LOCAL_LOCKS|OPTIMISTIC|SEQUENCED, defaulting to LOCAL_LOCKS
+    public static ConcurrencyMode fromSystemProperties() {
+        String mode = System.getProperty("bank.concurrency");
+        return mode == null || mode.isBlank() ? LOCAL_LOCKS : valueOf(mode.trim().toUpperCase());
+    }
+}
@@ -0,0 +1,9 @@
+// --- 20. db/ConnectionMode.java ---
+package db;
+
+// ConnectionMode selects how DatabaseManager hands out SQLite connections
+public enum ConnectionMode {
+    PER_CALL, // Opens and closes a physical connection for every operation (original behaviour)
+    SINGLE,   // One long-lived connection shared by all operations, for embedded use
+    POOLED    // A bounded set of long-lived connections handed out per operation
+}
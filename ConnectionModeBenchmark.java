@@ -0,0 +1,57 @@
+// --- 24. bench/ConnectionModeBenchmark.java ---
+package bench;
+
+import db.ConnectionMode;
+import db.DatabaseConfig;
+import db.DatabaseManager;
+import model.Account;
+import model.User;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+
+// Compares per-call connections (the original behaviour) against SINGLE and POOLED modes,
+// and POOLED with the per-connection statement cache switched off
+// Usage: java bench.ConnectionModeBenchmark [iterations]
+public class ConnectionModeBenchmark {
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        File dbFile = Files.createTempFile("conn-bench", ".db").toFile();
+        dbFile.deleteOnExit();
+
+        DatabaseManager seed = new DatabaseManager(dbFile.getPath());
+        seed.initializeDatabase();
+        User user = new User("bench", "hash", "Benchmark User", false);
+        seed.addUser(user, new byte[16]);
+        Account account = new Account(user.getId(), Account.AccountType.CHECKING, new BigDecimal("100.00"));
+        seed.addAccount(account);
+        seed.close();
+
+        for (ConnectionMode mode : ConnectionMode.values()) {
+            DatabaseConfig config = new DatabaseConfig();
+            config.setConnectionMode(mode);
+            run(mode.name(), config, dbFile, account.getId(), iterations);
+        }
+        DatabaseConfig uncached = new DatabaseConfig();
+        uncached.setStatementCacheSize(0);
+        run("POOLED (no statement cache)", uncached, dbFile, account.getId(), iterations);
+    }
+
+    private static void run(String label, DatabaseConfig config, File dbFile, String accountId, int iterations) throws Exception {
+        DatabaseManager dbManager = new DatabaseManager(dbFile.getPath(), config);
+        for (int i = 0; i < iterations / 10; i++) { // Warm-up
+            dbManager.getAccountById(accountId);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            dbManager.getAccountById(accountId);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        System.out.printf("%-28s %,10d lookups  %8.1f us/op  %,10.0f ops/s  (%d physical opens)%n",
+                label, iterations, elapsed / 1_000.0 / iterations, iterations * 1e9 / elapsed,
+                dbManager.getConnectionPool().getPhysicalOpenCount());
+        dbManager.close();
+    }
+}
@@ -0,0 +1,105 @@
+// --- 23. db/ConnectionPool.java ---
+package db;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// ConnectionPool hands out SQLite connections according to the configured ConnectionMode.
+// At most maxSize connections are leased at once; idle ones are kept (LIFO) for reuse.
+public class ConnectionPool {
+    private final String url;
+    private final ConnectionMode mode;
+    private final long acquireTimeoutMillis;
+    private final int statementCacheSize;
+    private final PragmaProfile pragmaProfile;
+    private final Semaphore permits;
+    private final ConcurrentLinkedDeque<PooledConnection> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicLong physicalOpens = new AtomicLong();
+    private volatile boolean closed;
+
+    public ConnectionPool(String url, DatabaseConfig config) {
+        this.url = url;
+        this.mode = config.getConnectionMode();
+        this.acquireTimeoutMillis = config.getAcquireTimeoutMillis();
+        this.statementCacheSize = config.getStatementCacheSize();
+        this.pragmaProfile = config.getPragmaProfile();
+        int maxSize = mode == ConnectionMode.SINGLE ? 1 : config.getPoolSize();
+        this.permits = new Semaphore(maxSize, true);
+    }
+
+    // Borrows a connection, opening a new one only if no idle connection is available
+    public PooledConnection acquire() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed.");
+        }
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timed out waiting for a database connection.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection.", e);
+        }
+        try {
+            PooledConnection pooled = idle.pollFirst();
+            if (pooled == null) {
+                pooled = new PooledConnection(this, openPhysicalConnection(), statementCacheSize);
+            }
+            pooled.markLeased();
+            return pooled;
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    void release(PooledConnection pooled) {
+        try {
+            if (mode == ConnectionMode.PER_CALL || closed || !pooled.resetForReuse()) {
+                pooled.closePhysically();
+            } else {
+                idle.offerFirst(pooled);
+                if (closed && idle.remove(pooled)) { // Lost a race with close()
+                    pooled.closePhysically();
+                }
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private Connection openPhysicalConnection() throws SQLException {
+        Properties props = new Properties();
+        props.setProperty("transaction_mode", "IMMEDIATE"); // Take the write lock at BEGIN, not at the first write
+        Connection connection = DriverManager.getConnection(url, props);
+        connection.setAutoCommit(true);
+        try {
+            pragmaProfile.applyTo(connection);
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+        physicalOpens.incrementAndGet();
+        return connection;
+    }
+
+    // Number of physical connections opened so far (useful for comparing modes)
+    public long getPhysicalOpenCount() { return physicalOpens.get(); }
+
+    public ConnectionMode getMode() { return mode; }
+
+    // Closes all idle connections; leased ones are closed as they are returned
+    public void close() {
+        closed = true;
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            pooled.closePhysically();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+// --- 21. db/DatabaseConfig.java ---
+package db;
+
+// DatabaseConfig holds the tunables used when DatabaseManager opens connections
+public class DatabaseConfig {
+    private ConnectionMode connectionMode = ConnectionMode.POOLED;
+    private int poolSize = 4;
+    private long acquireTimeoutMillis = 30_000;
+    private int statementCacheSize = 32; // Per connection; 0 disables caching
+    private PragmaProfile pragmaProfile = PragmaProfile.DURABLE;
+
+    // Reads the configuration from -D flags, falling back to the defaults above
+    // e.g. -Dbank.db.connectionMode=SINGLE -Dbank.db.poolSize=8 -Dbank.db.statementCacheSize=64
+    //      -Dbank.db.profile=THROUGHPUT
+    public static DatabaseConfig fromSystemProperties() {
+        DatabaseConfig config = new DatabaseConfig();
+        String mode = System.getProperty("bank.db.connectionMode");
+        if (mode != null && !mode.isBlank()) {
+            config.setConnectionMode(ConnectionMode.valueOf(mode.trim().toUpperCase()));
+        }
+        config.setPoolSize(Integer.getInteger("bank.db.poolSize", config.getPoolSize()));
+        config.setAcquireTimeoutMillis(Long.getLong("bank.db.acquireTimeoutMillis", config.getAcquireTimeoutMillis()));
+        config.setStatementCacheSize(Integer.getInteger("bank.db.statementCacheSize", config.getStatementCacheSize()));
+        String profile = System.getProperty("bank.db.profile");
+        if (profile != null && !profile.isBlank()) {
+            config.setPragmaProfile(PragmaProfile.valueOf(profile.trim().toUpperCase()));
+        }
+        return config;
+    }
+
+    // Getters
+    public ConnectionMode getConnectionMode() { return connectionMode; }
+    public int getPoolSize() { return poolSize; }
+    public long getAcquireTimeoutMillis() { return acquireTimeoutMillis; }
+    public int getStatementCacheSize() { return statementCacheSize; }
+    public PragmaProfile getPragmaProfile() { return pragmaProfile; }
+
+    // Setters
+    public void setConnectionMode(ConnectionMode connectionMode) { this.connectionMode = connectionMode; }
+    public void setPragmaProfile(PragmaProfile pragmaProfile) { this.pragmaProfile = pragmaProfile; }
+
+    public void setPoolSize(int poolSize) {
+        if (poolSize < 1) {
+            throw new IllegalArgumentException("Pool size must be at least 1.");
+        }
+        this.poolSize = poolSize;
+    }
+
+    public void setAcquireTimeoutMillis(long acquireTimeoutMillis) { this.acquireTimeoutMillis = acquireTimeoutMillis; }
+
+    public void setStatementCacheSize(int statementCacheSize) {
+        if (statementCacheSize < 0) {
+            throw new IllegalArgumentException("Statement cache size cannot be negative.");
+        }
+        this.statementCacheSize = statementCacheSize;
+    }
+}
@@ -5,57 +5,113 @@ import model.*;
 import util.PasswordHasher; // For Base64 decoding of salt if stored directly as string
 import java.math.BigDecimal;
 import java.sql.*;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 
 public class DatabaseManager {
     private String dbFilePath;
-    private Connection connection;
-    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private final ConnectionPool connectionPool;
+    private static final int STREAM_FETCH_SIZE = 1_000; // Rows per fetch for full-table scans
+    private static final int BATCH_CHUNK_SIZE = 500; // Rows per executeBatch() in the bulk APIs
+
+    private static final String INSERT_ACCOUNT = "INSERT INTO accounts (id, user_id, type, balance) VALUES (?, ?, ?, ?)";
+    private static final String UPDATE_ACCOUNT_BALANCE = "UPDATE accounts SET balance = ?, version = version + 1 WHERE id = ?";
+    // Adds a signed delta in one statement; the WHERE clause refuses to take the balance below zero
+    private static final String APPLY_BALANCE_DELTA = "UPDATE accounts SET balance = balance + ?, version = version + 1 WHERE id = ? AND balance + ? >= 0";
+    private static final String INSERT_TRANSACTION = "INSERT INTO transactions (id, account_id, counterparty_account_id, amount, type, timestamp, description) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    // Maps the current ResultSet row to a model object
+    @FunctionalInterface
+    private interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    // Hot lookups; each must stay served by an index (see QueryPlanCheck)
+    static final String SELECT_USER_BY_USERNAME = "SELECT id, username, password_hash, salt, full_name, is_admin FROM users WHERE username = ?";
+    static final String SELECT_ACCOUNTS_BY_USER = "SELECT * FROM accounts WHERE user_id = ?";
+    static final String SELECT_TRANSACTIONS_BY_ACCOUNT = "SELECT * FROM transactions WHERE account_id = ? ORDER BY timestamp DESC, id DESC";
+    static final String SELECT_TRANSACTION_PAGE_FIRST = "SELECT * FROM transactions WHERE account_id = ? ORDER BY timestamp DESC, id DESC LIMIT ?";
+    static final String SELECT_TRANSACTION_PAGE_AFTER = "SELECT * FROM transactions WHERE account_id = ? AND (timestamp, id) < (?, ?) ORDER BY timestamp DESC, id DESC LIMIT ?";
+    static final String SELECT_TRANSFER_EDGES = "SELECT s.user_id AS sender_user_id, r.user_id AS receiver_user_id, t.amount, t.timestamp " +
+                                               "FROM transactions t " +
+                                               "JOIN accounts s ON s.id = t.account_id " +
+                                               "JOIN accounts r ON r.id = t.counterparty_account_id " +
+                                               "WHERE t.type = 'TRANSFER_OUT'";
+    static final String SELECT_LOAN_BY_ID = "SELECT * FROM loan_applications WHERE id = ?";
+    static final String SELECT_LOANS_BY_STATUS = "SELECT * FROM loan_applications WHERE status = ? ORDER BY priority_score ASC, application_date ASC";
+    static final String SELECT_LOANS_BY_USER = "SELECT * FROM loan_applications WHERE user_id = ? ORDER BY application_date DESC LIMIT ?";
+
 
-    
     public DatabaseManager(String dbFilePath) {
+        this(dbFilePath, new DatabaseConfig());
+    }
+
+    public DatabaseManager(String dbFilePath, DatabaseConfig config) {
         this.dbFilePath = dbFilePath;
-      
+
         try {
             Class.forName("org.sqlite.JDBC");
         } catch (ClassNotFoundException e) {
             throw new RuntimeException("SQLite JDBC driver not found.", e);
         }
+        this.connectionPool = new ConnectionPool("jdbc:sqlite:" + dbFilePath, config);
     }
 
-    // Opens a database connection
-    public Connection openConnection() throws SQLException { // Made public for external use
-        if (connection == null || connection.isClosed()) {
-            String url = "jdbc:sqlite:" + dbFilePath;
-            connection = DriverManager.getConnection(url);
-            connection.setAutoCommit(true); // Auto-commit for simplicity
-            // System.out.println("Opened database connection: " + dbFilePath); // Debug
-        }
-        return connection;
+    // Borrows a connection from the pool; closing it hands it back (auto-commit is on)
+    public PooledConnection openConnection() throws SQLException { // Made public for external use
+        return connectionPool.acquire();
     }
 
-    // Closes the database connection
-    public void closeConnection() { // Made public for external use
-        try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-                connection = null; // Clear connection to allow reopening
-                // System.out.println("Closed database connection: " + dbFilePath); // Debug
+    public ConnectionPool getConnectionPool() {
+        return connectionPool;
+    }
+
+    // Closes every pooled connection; call once on shutdown
+    public void close() {
+        connectionPool.close();
+    }
+
+    // Runs the work on one connection inside one SQLite transaction (a single commit).
+    // The transaction starts IMMEDIATE, so reads made through the UnitOfWork already hold
+    // the write lock and cannot be invalidated by another writer before the commit.
+    // Any exception rolls the whole unit back and is rethrown to the caller.
+    public <T> T inTransaction(UnitOfWork.Work<T> work) throws SQLException {
+        try (PooledConnection conn = openConnection()) {
+            Connection raw = conn.getConnection();
+            raw.setAutoCommit(false);
+            try {
+                T result = work.execute(new UnitOfWork(this, conn));
+                raw.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                try {
+                    raw.rollback();
+                } catch (SQLException rollbackError) {
+                    e.addSuppressed(rollbackError);
+                }
+                throw e;
+            } finally {
+                raw.setAutoCommit(true);
             }
-        } catch (SQLException e) {
-            System.err.println("Error closing database connection: " + e.getMessage());
         }
     }
 
-    // Initializes database tables (creates them if they don't exist)
+    // Initializes database tables (creates them if they don't exist) and migrates older schemas
     public void initializeDatabase() throws SQLException {
-        try (Connection conn = openConnection();
+        try (PooledConnection conn = openConnection();
              Statement stmt = conn.createStatement()) {
+            boolean freshDatabase = !tableExists(conn, "users");
+
             // Users table
             String createUserTableSql = "CREATE TABLE IF NOT EXISTS users (" +
                                         "id TEXT PRIMARY KEY NOT NULL," +
@@ -72,7 +128,8 @@ public class DatabaseManager {
                                            "id TEXT PRIMARY KEY NOT NULL," +
                                            "user_id TEXT NOT NULL," +
                                            "type TEXT NOT NULL," + // CHECKING or SAVINGS
-                                           "balance REAL NOT NULL," +
+                                           "balance INTEGER NOT NULL," + // Minor units (cents)
+                                           "version INTEGER NOT NULL DEFAULT 0," + // Bumped by every balance write
                                            "FOREIGN KEY (user_id) REFERENCES users(id)" +
                                            ");";
             stmt.execute(createAccountTableSql);
@@ -82,9 +139,9 @@ public class DatabaseManager {
                                                "id TEXT PRIMARY KEY NOT NULL," +
                                                "account_id TEXT NOT NULL," +
                                                "counterparty_account_id TEXT," + // Null for deposit/withdrawal
-                                               "amount REAL NOT NULL," +
+                                               "amount INTEGER NOT NULL," + // Minor units (cents)
                                                "type TEXT NOT NULL," +
-                                               "timestamp TEXT NOT NULL," + // Stored as ISO 8601 string
+                                               "timestamp INTEGER NOT NULL," + // Epoch milliseconds
                                                "description TEXT," +
                                                "FOREIGN KEY (account_id) REFERENCES accounts(id)" +
                                                ");";
@@ -94,26 +151,170 @@ public class DatabaseManager {
             String createLoanApplicationsTableSql = "CREATE TABLE IF NOT EXISTS loan_applications (" +
                                                     "id TEXT PRIMARY KEY NOT NULL," +
                                                     "user_id TEXT NOT NULL," +
-                                                    "amount REAL NOT NULL," +
+                                                    "amount INTEGER NOT NULL," + // Minor units (cents)
                                                     "status TEXT NOT NULL," + // PENDING, APPROVED, REJECTED
-                                                    "application_date TEXT NOT NULL," +
+                                                    "application_date INTEGER NOT NULL," + // Epoch milliseconds
                                                     "reason TEXT," +
                                                     "priority_score INTEGER NOT NULL," +
+                                                    "lease_owner TEXT," + // Admin user id holding the loan for review, null if unclaimed
+                                                    "lease_expires INTEGER," + // Epoch milliseconds; an expired lease counts as none
                                                     "FOREIGN KEY (user_id) REFERENCES users(id)" +
                                                     ");";
             stmt.execute(createLoanApplicationsTableSql);
 
+            if (freshDatabase) {
+                setSchemaVersion(stmt, SCHEMA_VERSION); // Created with the current layout, nothing to migrate
+            } else {
+                migrateSchema(conn);
+            }
+
+            // Secondary indexes matching the hot access paths (idempotent, so existing databases get them too)
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_accounts_user_id ON accounts (user_id)");
+            stmt.execute("DROP INDEX IF EXISTS idx_transactions_account_time"); // Superseded: keyset paging also orders by id
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_transactions_account_time_id ON transactions (account_id, timestamp, id)");
+            // Partial covering index: graph loading reads only transfer rows, never the table itself
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_transactions_transfer_out ON transactions " +
+                         "(account_id, counterparty_account_id, amount, timestamp) WHERE type = 'TRANSFER_OUT'");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_loans_status_priority ON loan_applications (status, priority_score, application_date)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_loans_user_date ON loan_applications (user_id, application_date)");
+
             System.out.println("Database initialized.");
+        }
+    }
+
+    // --- Schema migrations ---
+    // The schema version lives in PRAGMA user_version. Databases created before versioning read as 0.
+    // Each step runs in its own transaction together with the version bump.
+    private static final int SCHEMA_VERSION = 4;
+
+    @FunctionalInterface
+    private interface MigrationStep {
+        void apply(Statement stmt) throws SQLException;
+    }
+
+    private void migrateSchema(PooledConnection conn) throws SQLException {
+        int version;
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+            version = rs.next() ? rs.getInt(1) : 0;
+        }
+        if (version < 1) {
+            runMigration(conn, 1, this::migrateMoneyToMinorUnits);
+        }
+        if (version < 2) {
+            runMigration(conn, 2, this::migrateDatesToEpochMillis);
+        }
+        if (version < 3) {
+            runMigration(conn, 3, stmt -> stmt.execute("ALTER TABLE accounts ADD COLUMN version INTEGER NOT NULL DEFAULT 0"));
+        }
+        if (version < 4) {
+            runMigration(conn, 4, stmt -> {
+                stmt.execute("ALTER TABLE loan_applications ADD COLUMN lease_owner TEXT");
+                stmt.execute("ALTER TABLE loan_applications ADD COLUMN lease_expires INTEGER");
+            });
+        }
+    }
+
+    private void runMigration(PooledConnection conn, int targetVersion, MigrationStep step) throws SQLException {
+        Connection raw = conn.getConnection();
+        raw.setAutoCommit(false);
+        try (Statement stmt = raw.createStatement()) {
+            step.apply(stmt);
+            setSchemaVersion(stmt, targetVersion);
+            raw.commit();
+            System.out.println("Database migrated to schema version " + targetVersion + ".");
+        } catch (SQLException | RuntimeException e) {
+            raw.rollback();
+            throw e;
         } finally {
-            closeConnection();
+            raw.setAutoCommit(true);
+        }
+    }
+
+    private void setSchemaVersion(Statement stmt, int version) throws SQLException {
+        stmt.execute("PRAGMA user_version = " + version);
+    }
+
+    private boolean tableExists(PooledConnection conn, String tableName) throws SQLException {
+        PreparedStatement pstmt = conn.prepareCached("SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = ?");
+        pstmt.setString(1, tableName);
+        try (ResultSet rs = pstmt.executeQuery()) {
+            return rs.next();
+        }
+    }
+
+    // v1: REAL money columns become INTEGER minor units (x100). SQLite cannot change a column's
+    // type in place, so each table is rebuilt with the v1 layout and renamed over the original.
+    private void migrateMoneyToMinorUnits(Statement stmt) throws SQLException {
+        stmt.execute("CREATE TABLE accounts_v1 (id TEXT PRIMARY KEY NOT NULL, user_id TEXT NOT NULL, type TEXT NOT NULL, " +
+                     "balance INTEGER NOT NULL, FOREIGN KEY (user_id) REFERENCES users(id))");
+        stmt.execute("INSERT INTO accounts_v1 (id, user_id, type, balance) " +
+                     "SELECT id, user_id, type, CAST(ROUND(balance * 100) AS INTEGER) FROM accounts");
+        stmt.execute("DROP TABLE accounts");
+        stmt.execute("ALTER TABLE accounts_v1 RENAME TO accounts");
+
+        stmt.execute("CREATE TABLE transactions_v1 (id TEXT PRIMARY KEY NOT NULL, account_id TEXT NOT NULL, counterparty_account_id TEXT, " +
+                     "amount INTEGER NOT NULL, type TEXT NOT NULL, timestamp TEXT NOT NULL, description TEXT, " +
+                     "FOREIGN KEY (account_id) REFERENCES accounts(id))");
+        stmt.execute("INSERT INTO transactions_v1 (id, account_id, counterparty_account_id, amount, type, timestamp, description) " +
+                     "SELECT id, account_id, counterparty_account_id, CAST(ROUND(amount * 100) AS INTEGER), type, timestamp, description FROM transactions");
+        stmt.execute("DROP TABLE transactions");
+        stmt.execute("ALTER TABLE transactions_v1 RENAME TO transactions");
+
+        stmt.execute("CREATE TABLE loan_applications_v1 (id TEXT PRIMARY KEY NOT NULL, user_id TEXT NOT NULL, amount INTEGER NOT NULL, " +
+                     "status TEXT NOT NULL, application_date TEXT NOT NULL, reason TEXT, priority_score INTEGER NOT NULL, " +
+                     "FOREIGN KEY (user_id) REFERENCES users(id))");
+        stmt.execute("INSERT INTO loan_applications_v1 (id, user_id, amount, status, application_date, reason, priority_score) " +
+                     "SELECT id, user_id, CAST(ROUND(amount * 100) AS INTEGER), status, application_date, reason, priority_score FROM loan_applications");
+        stmt.execute("DROP TABLE loan_applications");
+        stmt.execute("ALTER TABLE loan_applications_v1 RENAME TO loan_applications");
+        // Indexes went with the old tables; initializeDatabase recreates them right after migrating
+    }
+
+    // v2: 'yyyy-MM-dd HH:mm:ss' TEXT dates become INTEGER epoch milliseconds. The text was written in
+    // local time, so the 'utc' modifier shifts it to UTC before strftime('%s') takes the epoch seconds.
+    private void migrateDatesToEpochMillis(Statement stmt) throws SQLException {
+        stmt.execute("CREATE TABLE transactions_v2 (id TEXT PRIMARY KEY NOT NULL, account_id TEXT NOT NULL, counterparty_account_id TEXT, " +
+                     "amount INTEGER NOT NULL, type TEXT NOT NULL, timestamp INTEGER NOT NULL, description TEXT, " +
+                     "FOREIGN KEY (account_id) REFERENCES accounts(id))");
+        stmt.execute("INSERT INTO transactions_v2 (id, account_id, counterparty_account_id, amount, type, timestamp, description) " +
+                     "SELECT id, account_id, counterparty_account_id, amount, type, " +
+                     "CAST(strftime('%s', timestamp, 'utc') AS INTEGER) * 1000, description FROM transactions");
+        stmt.execute("DROP TABLE transactions");
+        stmt.execute("ALTER TABLE transactions_v2 RENAME TO transactions");
+
+        stmt.execute("CREATE TABLE loan_applications_v2 (id TEXT PRIMARY KEY NOT NULL, user_id TEXT NOT NULL, amount INTEGER NOT NULL, " +
+                     "status TEXT NOT NULL, application_date INTEGER NOT NULL, reason TEXT, priority_score INTEGER NOT NULL, " +
+                     "FOREIGN KEY (user_id) REFERENCES users(id))");
+        stmt.execute("INSERT INTO loan_applications_v2 (id, user_id, amount, status, application_date, reason, priority_score) " +
+                     "SELECT id, user_id, amount, status, " +
+                     "CAST(strftime('%s', application_date, 'utc') AS INTEGER) * 1000, reason, priority_score FROM loan_applications");
+        stmt.execute("DROP TABLE loan_applications");
+        stmt.execute("ALTER TABLE loan_applications_v2 RENAME TO loan_applications");
+    }
+
+    // Returns the EXPLAIN QUERY PLAN detail lines for a query, binding the given parameters
+    public List<String> explainQueryPlan(String sql, Object... params) throws SQLException {
+        List<String> plan = new ArrayList<>();
+        try (PooledConnection conn = openConnection();
+             PreparedStatement pstmt = conn.prepareStatement("EXPLAIN QUERY PLAN " + sql)) {
+            for (int i = 0; i < params.length; i++) {
+                pstmt.setObject(i + 1, params[i]);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    plan.add(rs.getString("detail"));
+                }
+            }
         }
+        return plan;
     }
 
     // --- User CRUD ---
     public void addUser(User user, byte[] salt) throws SQLException {
-        try (Connection conn = openConnection();
-             PreparedStatement pstmt = conn.prepareStatement(
-                     "INSERT INTO users (id, username, password_hash, salt, full_name, is_admin) VALUES (?, ?, ?, ?, ?, ?)")) {
+        try (PooledConnection conn = openConnection()) {
+            PreparedStatement pstmt = conn.prepareCached(
+                    "INSERT INTO users (id, username, password_hash, salt, full_name, is_admin) VALUES (?, ?, ?, ?, ?, ?)");
             pstmt.setString(1, user.getId());
             pstmt.setString(2, user.getUsername());
             pstmt.setString(3, user.getPasswordHash());
@@ -122,37 +323,81 @@ public class DatabaseManager {
             pstmt.setInt(6, user.isAdmin() ? 1 : 0);
             pstmt.executeUpdate();
             System.out.println("User added: " + user.getUsername());
-        } finally {
-            closeConnection();
         }
     }
 
     public User getUserByUsername(String username) throws SQLException {
         User user = null;
-        try (Connection conn = openConnection();
-             PreparedStatement pstmt = conn.prepareStatement("SELECT * FROM users WHERE username = ?")) {
+        try (PooledConnection conn = openConnection()) {
+            PreparedStatement pstmt = conn.prepareCached(SELECT_USER_BY_USERNAME);
             pstmt.setString(1, username);
             try (ResultSet rs = pstmt.executeQuery()) {
                 if (rs.next()) {
-                    user = new User(
-                            rs.getString("id"),
-                            rs.getString("username"),
-                            rs.getString("password_hash"),
-                            rs.getString("full_name"),
-                            rs.getInt("is_admin") == 1
-                    );
+                    user = mapUser(rs);
                 }
             }
-        } finally {
-            closeConnection();
         }
         return user;
     }
 
+    // Everything a login needs (user, hash and salt) in one query; null if the username is unknown
+    public UserCredentials getUserCredentials(String username) throws SQLException {
+        UserCredentials credentials = null;
+        try (PooledConnection conn = openConnection()) {
+            PreparedStatement pstmt = conn.prepareCached(SELECT_USER_BY_USERNAME);
+            pstmt.setString(1, username);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    String saltBase64 = rs.getString("salt");
+                    byte[] salt = saltBase64 != null ? Base64.getDecoder().decode(saltBase64) : null;
+                    credentials = new UserCredentials(mapUser(rs), salt);
+                }
+            }
+        }
+        return credentials;
+    }
+
+    // True if e means another connection (possibly another process) holds the lock; the operation can be retried
+    public static boolean isBusy(SQLException e) {
+        int code = e.getErrorCode() & 0xFF; // Extended result codes keep the primary code in the low byte
+        String message = e.getMessage();
+        return code == 5 || code == 6 // SQLITE_BUSY, SQLITE_LOCKED
+                || (message != null && (message.contains("SQLITE_BUSY") || message.contains("SQLITE_LOCKED")));
+    }
+
+    // True if e is SQLite rejecting a duplicate value for the given UNIQUE column (e.g. "users.username")
+    public static boolean isUniqueViolation(SQLException e, String tableDotColumn) {
+        String message = e.getMessage();
+        return message != null && message.contains("UNIQUE constraint failed") && message.contains(tableDotColumn);
+    }
+
+    private User mapUser(ResultSet rs) throws SQLException {
+        return new User(
+                rs.getString("id"),
+                rs.getString("username"),
+                rs.getString("password_hash"),
+                rs.getString("full_name"),
+                rs.getInt("is_admin") == 1
+        );
+    }
+
+    // Maps every user id to its username (used to label the transaction graph)
+    public Map<String, String> getUsernamesById() throws SQLException {
+        Map<String, String> usernames = new HashMap<>();
+        try (PooledConnection conn = openConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT id, username FROM users")) {
+            while (rs.next()) {
+                usernames.put(rs.getString("id"), rs.getString("username"));
+            }
+        }
+        return usernames;
+    }
+
     public byte[] getUserSalt(String username) throws SQLException {
         byte[] salt = null;
-        try (Connection conn = openConnection();
-             PreparedStatement pstmt = conn.prepareStatement("SELECT salt FROM users WHERE username = ?")) {
+        try (PooledConnection conn = openConnection()) {
+            PreparedStatement pstmt = conn.prepareCached("SELECT salt FROM users WHERE username = ?");
             pstmt.setString(1, username);
             try (ResultSet rs = pstmt.executeQuery()) {
                 if (rs.next()) {
@@ -162,78 +407,126 @@ public class DatabaseManager {
                     }
                 }
             }
-        } finally {
-            closeConnection();
         }
         return salt;
     }
 
     // --- Account CRUD ---
     public void addAccount(Account account) throws SQLException {
-        try (Connection conn = openConnection();
-             PreparedStatement pstmt = conn.prepareStatement(
-                     "INSERT INTO accounts (id, user_id, type, balance) VALUES (?, ?, ?, ?)")) {
-            pstmt.setString(1, account.getId());
-            pstmt.setString(2, account.getUserId());
-            pstmt.setString(3, account.getType().name());
-            pstmt.setBigDecimal(4, account.getBalance());
-            pstmt.executeUpdate();
-            System.out.println("Account added: " + account.getId());
-        } finally {
-            closeConnection();
+        try (PooledConnection conn = openConnection()) {
+            addAccount(conn, account);
         }
     }
 
+    void addAccount(PooledConnection conn, Account account) throws SQLException {
+        PreparedStatement pstmt = conn.prepareCached(INSERT_ACCOUNT);
+        bindAccount(pstmt, account);
+        pstmt.executeUpdate();
+        System.out.println("Account added: " + account.getId());
+    }
+
+    // Inserts many accounts with JDBC batching in a single transaction
+    public void addAccounts(Collection<Account> accounts) throws SQLException {
+        inTransaction(uow -> {
+            uow.addAccounts(accounts);
+            return null;
+        });
+    }
+
+    void addAccounts(PooledConnection conn, Collection<Account> accounts) throws SQLException {
+        PreparedStatement pstmt = conn.prepareCached(INSERT_ACCOUNT);
+        executeInChunks(pstmt, accounts, this::bindAccount);
+        System.out.println("Accounts added: " + accounts.size());
+    }
+
+    private void bindAccount(PreparedStatement pstmt, Account account) throws SQLException {
+        pstmt.setString(1, account.getId());
+        pstmt.setString(2, account.getUserId());
+        pstmt.setString(3, account.getType().name());
+        pstmt.setLong(4, account.getBalanceMinor());
+    }
+
     public void updateAccountBalance(String accountId, BigDecimal newBalance) throws SQLException {
-        try (Connection conn = openConnection();
-             PreparedStatement pstmt = conn.prepareStatement("UPDATE accounts SET balance = ? WHERE id = ?")) {
-            pstmt.setBigDecimal(1, newBalance);
-            pstmt.setString(2, accountId);
-            pstmt.executeUpdate();
-            System.out.println("Account balance updated for: " + accountId);
-        } finally {
-            closeConnection();
+        updateAccountBalance(accountId, Money.toMinorUnits(newBalance));
+    }
+
+    // Sets the balance, given in minor units (cents)
+    public void updateAccountBalance(String accountId, long newBalanceMinor) throws SQLException {
+        try (PooledConnection conn = openConnection()) {
+            updateAccountBalance(conn, accountId, newBalanceMinor);
+        }
+    }
+
+    void updateAccountBalance(PooledConnection conn, String accountId, long newBalanceMinor) throws SQLException {
+        PreparedStatement pstmt = conn.prepareCached(UPDATE_ACCOUNT_BALANCE);
+        pstmt.setLong(1, newBalanceMinor);
+        pstmt.setString(2, accountId);
+        pstmt.executeUpdate();
+        System.out.println("Account balance updated for: " + accountId);
+    }
+
+    // Adds deltaMinor (negative to debit) to the stored balance without reading it first.
+    // Returns false, changing nothing, if the account does not exist or would go below zero,
+    // so overdraft and lost-update protection hold even across processes sharing the file.
+    public boolean applyBalanceDelta(String accountId, long deltaMinor) throws SQLException {
+        try (PooledConnection conn = openConnection()) {
+            return applyBalanceDelta(conn, accountId, deltaMinor);
         }
     }
 
+    boolean applyBalanceDelta(PooledConnection conn, String accountId, long deltaMinor) throws SQLException {
+        PreparedStatement pstmt = conn.prepareCached(APPLY_BALANCE_DELTA);
+        pstmt.setLong(1, deltaMinor);
+        pstmt.setString(2, accountId);
+        pstmt.setLong(3, deltaMinor);
+        return pstmt.executeUpdate() == 1;
+    }
+
+    // Sets many balances (account id -> new balance in minor units) with JDBC batching in a single transaction
+    public void updateAccountBalances(Map<String, Long> newBalances) throws SQLException {
+        inTransaction(uow -> {
+            uow.updateAccountBalances(newBalances);
+            return null;
+        });
+    }
+
+    void updateAccountBalances(PooledConnection conn, Map<String, Long> newBalances) throws SQLException {
+        PreparedStatement pstmt = conn.prepareCached(UPDATE_ACCOUNT_BALANCE);
+        executeInChunks(pstmt, newBalances.entrySet(), (stmt, entry) -> {
+            stmt.setLong(1, entry.getValue());
+            stmt.setString(2, entry.getKey());
+        });
+        System.out.println("Account balances updated: " + newBalances.size());
+    }
+
     public Account getAccountById(String accountId) throws SQLException {
+        try (PooledConnection conn = openConnection()) {
+            return getAccountById(conn, accountId);
+        }
+    }
+
+    Account getAccountById(PooledConnection conn, String accountId) throws SQLException {
         Account account = null;
-        try (Connection conn = openConnection();
-             PreparedStatement pstmt = conn.prepareStatement("SELECT * FROM accounts WHERE id = ?")) {
-            pstmt.setString(1, accountId);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    account = new Account(
-                            rs.getString("id"),
-                            rs.getString("user_id"),
-                            Account.AccountType.valueOf(rs.getString("type")),
-                            rs.getBigDecimal("balance")
-                    );
-                }
+        PreparedStatement pstmt = conn.prepareCached("SELECT * FROM accounts WHERE id = ?");
+        pstmt.setString(1, accountId);
+        try (ResultSet rs = pstmt.executeQuery()) {
+            if (rs.next()) {
+                account = mapAccount(rs);
             }
-        } finally {
-            closeConnection();
         }
         return account;
     }
 
     public List<Account> getAccountsByUserId(String userId) throws SQLException {
         List<Account> accounts = new ArrayList<>();
-        try (Connection conn = openConnection();
-             PreparedStatement pstmt = conn.prepareStatement("SELECT * FROM accounts WHERE user_id = ?")) {
+        try (PooledConnection conn = openConnection()) {
+            PreparedStatement pstmt = conn.prepareCached(SELECT_ACCOUNTS_BY_USER);
             pstmt.setString(1, userId);
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
-                    accounts.add(new Account(
-                            rs.getString("id"),
-                            rs.getString("user_id"),
-                            Account.AccountType.valueOf(rs.getString("type")),
-                            rs.getBigDecimal("balance")
-                    ));
+                    accounts.add(mapAccount(rs));
                 }
             }
-        } finally {
-            closeConnection();
         }
         return accounts;
     }
@@ -241,141 +534,397 @@ public class DatabaseManager {
     // New method to get all accounts
     public List<Account> getAllAccounts() throws SQLException {
         List<Account> accounts = new ArrayList<>();
-        try (Connection conn = openConnection();
+        try (PooledConnection conn = openConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery("SELECT * FROM accounts")) {
             while (rs.next()) {
-                accounts.add(new Account(
-                        rs.getString("id"),
-                        rs.getString("user_id"),
-                        Account.AccountType.valueOf(rs.getString("type")),
-                        rs.getBigDecimal("balance")
-                ));
+                accounts.add(mapAccount(rs));
             }
-        } finally {
-            closeConnection();
         }
         return accounts;
     }
 
+    // Streams every account to the callback without materializing a list
+    public void forEachAccount(RowCallback<Account> callback) throws SQLException {
+        forEachRow("SELECT * FROM accounts", this::mapAccount, callback);
+    }
+
+    // Lazily streams every account; the stream holds a connection, so close it (try-with-resources)
+    public Stream<Account> streamAccounts() throws SQLException {
+        return streamRows("SELECT * FROM accounts", this::mapAccount);
+    }
+
+    private Account mapAccount(ResultSet rs) throws SQLException {
+        return new Account(
+                rs.getString("id"),
+                rs.getString("user_id"),
+                Account.AccountType.valueOf(rs.getString("type")),
+                rs.getLong("balance"),
+                rs.getLong("version")
+        );
+    }
+
     // --- Transaction CRUD ---
     public void addTransaction(Transaction transaction) throws SQLException {
-        try (Connection conn = openConnection();
-             PreparedStatement pstmt = conn.prepareStatement(
-                     "INSERT INTO transactions (id, account_id, counterparty_account_id, amount, type, timestamp, description) VALUES (?, ?, ?, ?, ?, ?, ?)")) {
-            pstmt.setString(1, transaction.getId());
-            pstmt.setString(2, transaction.getAccountId());
-            pstmt.setString(3, transaction.getCounterpartyAccountId());
-            pstmt.setBigDecimal(4, transaction.getAmount());
-            pstmt.setString(5, transaction.getType().name());
-            pstmt.setString(6, transaction.getTimestamp().format(FORMATTER));
-            pstmt.setString(7, transaction.getDescription());
-            pstmt.executeUpdate();
-            System.out.println("Transaction added: " + transaction.getId());
-        } finally {
-            closeConnection();
+        try (PooledConnection conn = openConnection()) {
+            addTransaction(conn, transaction);
         }
     }
 
+    void addTransaction(PooledConnection conn, Transaction transaction) throws SQLException {
+        PreparedStatement pstmt = conn.prepareCached(INSERT_TRANSACTION);
+        bindTransaction(pstmt, transaction);
+        pstmt.executeUpdate();
+        System.out.println("Transaction added: " + transaction.getId());
+    }
+
+    // Inserts many ledger rows with JDBC batching in a single transaction (one commit for the lot)
+    public void addTransactions(Collection<Transaction> transactions) throws SQLException {
+        inTransaction(uow -> {
+            uow.addTransactions(transactions);
+            return null;
+        });
+    }
+
+    void addTransactions(PooledConnection conn, Collection<Transaction> transactions) throws SQLException {
+        PreparedStatement pstmt = conn.prepareCached(INSERT_TRANSACTION);
+        executeInChunks(pstmt, transactions, this::bindTransaction);
+        System.out.println("Transactions added: " + transactions.size());
+    }
+
+    private void bindTransaction(PreparedStatement pstmt, Transaction transaction) throws SQLException {
+        pstmt.setString(1, transaction.getId());
+        pstmt.setString(2, transaction.getAccountId());
+        pstmt.setString(3, transaction.getCounterpartyAccountId());
+        pstmt.setLong(4, transaction.getAmountMinor());
+        pstmt.setString(5, transaction.getType().name());
+        pstmt.setLong(6, transaction.getTimestampMillis());
+        pstmt.setString(7, transaction.getDescription());
+    }
+
     public List<Transaction> getTransactionsByAccountId(String accountId) throws SQLException {
         List<Transaction> transactions = new ArrayList<>();
-        try (Connection conn = openConnection();
-             PreparedStatement pstmt = conn.prepareStatement("SELECT * FROM transactions WHERE account_id = ? ORDER BY timestamp DESC")) {
+        try (PooledConnection conn = openConnection()) {
+            PreparedStatement pstmt = conn.prepareCached(SELECT_TRANSACTIONS_BY_ACCOUNT);
             pstmt.setString(1, accountId);
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
-                    transactions.add(new Transaction(
-                            rs.getString("id"),
-                            rs.getString("account_id"),
-                            rs.getString("counterparty_account_id"),
-                            rs.getBigDecimal("amount"),
-                            Transaction.TransactionType.valueOf(rs.getString("type")),
-                            LocalDateTime.parse(rs.getString("timestamp"), FORMATTER),
-                            rs.getString("description")
-                    ));
+                    transactions.add(mapTransaction(rs));
                 }
             }
-        } finally {
-            closeConnection();
         }
         return transactions;
     }
 
+    // Returns up to pageSize transactions older than the cursor (newest first); pass null for the first page.
+    // Keyset paging walks idx_transactions_account_time_id, so deep pages cost the same as the first.
+    public TransactionPage getTransactionsPage(String accountId, TransactionPage.Cursor after, int pageSize) throws SQLException {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be positive.");
+        }
+        List<Transaction> transactions = new ArrayList<>(pageSize);
+        boolean hasMore = false;
+        try (PooledConnection conn = openConnection()) {
+            PreparedStatement pstmt;
+            if (after == null) {
+                pstmt = conn.prepareCached(SELECT_TRANSACTION_PAGE_FIRST);
+                pstmt.setString(1, accountId);
+                pstmt.setInt(2, pageSize + 1); // One extra row tells us whether another page exists
+            } else {
+                pstmt = conn.prepareCached(SELECT_TRANSACTION_PAGE_AFTER);
+                pstmt.setString(1, accountId);
+                pstmt.setLong(2, after.getTimestampMillis());
+                pstmt.setString(3, after.getId());
+                pstmt.setInt(4, pageSize + 1);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    if (transactions.size() == pageSize) {
+                        hasMore = true;
+                        break;
+                    }
+                    transactions.add(mapTransaction(rs));
+                }
+            }
+        }
+        TransactionPage.Cursor next = null;
+        if (hasMore) {
+            Transaction last = transactions.get(transactions.size() - 1);
+            next = new TransactionPage.Cursor(last.getTimestampMillis(), last.getId());
+        }
+        return new TransactionPage(transactions, next);
+    }
+
     public List<Transaction> getAllTransactions() throws SQLException {
         List<Transaction> transactions = new ArrayList<>();
-        try (Connection conn = openConnection();
+        try (PooledConnection conn = openConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery("SELECT * FROM transactions ORDER BY timestamp DESC")) {
             while (rs.next()) {
-                transactions.add(new Transaction(
-                        rs.getString("id"),
-                        rs.getString("account_id"),
-                        rs.getString("counterparty_account_id"),
-                        rs.getBigDecimal("amount"),
-                        Transaction.TransactionType.valueOf(rs.getString("type")),
-                        LocalDateTime.parse(rs.getString("timestamp"), FORMATTER),
-                        rs.getString("description")
-                ));
+                transactions.add(mapTransaction(rs));
             }
-        } finally {
-            closeConnection();
         }
         return transactions;
     }
 
+    // Streams every transaction, in insertion order, to the callback in constant memory.
+    // Unlike getAllTransactions() there is no ORDER BY, so SQLite never sorts the whole ledger.
+    public void forEachTransaction(RowCallback<Transaction> callback) throws SQLException {
+        forEachRow("SELECT * FROM transactions", this::mapTransaction, callback);
+    }
+
+    // Lazily streams every transaction in insertion order; close the stream to release its connection
+    public Stream<Transaction> streamTransactions() throws SQLException {
+        return streamRows("SELECT * FROM transactions", this::mapTransaction);
+    }
+
+    // Streams every TRANSFER_OUT as a (sender user, receiver user, amount, timestamp) edge in one joined
+    // query, instead of two account lookups per transfer
+    public void forEachTransferEdge(RowCallback<TransferEdge> callback) throws SQLException {
+        forEachRow(SELECT_TRANSFER_EDGES, rs -> new TransferEdge(
+                rs.getString("sender_user_id"),
+                rs.getString("receiver_user_id"),
+                rs.getLong("amount"),
+                rs.getLong("timestamp")
+        ), callback);
+    }
+
+    private Transaction mapTransaction(ResultSet rs) throws SQLException {
+        return new Transaction(
+                rs.getString("id"),
+                rs.getString("account_id"),
+                rs.getString("counterparty_account_id"),
+                rs.getLong("amount"),
+                Transaction.TransactionType.valueOf(rs.getString("type")),
+                rs.getLong("timestamp"), // Converted to LocalDateTime only if displayed
+                rs.getString("description")
+        );
+    }
+
+
+    // --- Batching ---
+    @FunctionalInterface
+    private interface RowBinder<T> {
+        void bind(PreparedStatement pstmt, T row) throws SQLException;
+    }
+
+    // Binds each row and sends them to SQLite BATCH_CHUNK_SIZE at a time; the caller owns the transaction
+    private <T> void executeInChunks(PreparedStatement pstmt, Collection<T> rows, RowBinder<T> binder) throws SQLException {
+        int pending = 0;
+        for (T row : rows) {
+            binder.bind(pstmt, row);
+            pstmt.addBatch();
+            if (++pending == BATCH_CHUNK_SIZE) {
+                pstmt.executeBatch();
+                pending = 0;
+            }
+        }
+        if (pending > 0) {
+            pstmt.executeBatch();
+        }
+    }
+
+    // --- Streaming scans ---
+    private Statement createStreamingStatement(PooledConnection conn) throws SQLException {
+        Statement stmt = conn.getConnection().createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        stmt.setFetchSize(STREAM_FETCH_SIZE);
+        return stmt;
+    }
+
+    private <T> void forEachRow(String sql, RowMapper<T> mapper, RowCallback<T> callback) throws SQLException {
+        try (PooledConnection conn = openConnection();
+             Statement stmt = createStreamingStatement(conn);
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                callback.accept(mapper.map(rs));
+            }
+        }
+    }
+
+    private <T> Stream<T> streamRows(String sql, RowMapper<T> mapper) throws SQLException {
+        PooledConnection conn = openConnection();
+        Statement stmt = null;
+        ResultSet rs;
+        try {
+            stmt = createStreamingStatement(conn);
+            rs = stmt.executeQuery(sql);
+        } catch (SQLException | RuntimeException e) {
+            if (stmt != null) {
+                stmt.close();
+            }
+            conn.close();
+            throw e;
+        }
+        Statement openStmt = stmt;
+        Spliterator<T> rows = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                try {
+                    if (!rs.next()) {
+                        return false;
+                    }
+                    action.accept(mapper.map(rs));
+                    return true;
+                } catch (SQLException e) {
+                    throw new RuntimeException("Error streaming rows: " + e.getMessage(), e);
+                }
+            }
+        };
+        return StreamSupport.stream(rows, false).onClose(() -> {
+            try {
+                rs.close();
+                openStmt.close();
+            } catch (SQLException e) {
+                System.err.println("Error closing streamed result set: " + e.getMessage());
+            } finally {
+                conn.close();
+            }
+        });
+    }
+
 
     // --- Loan Application CRUD ---
     public void addLoanApplication(LoanApplication loan) throws SQLException {
-        try (Connection conn = openConnection();
-             PreparedStatement pstmt = conn.prepareStatement(
-                     "INSERT INTO loan_applications (id, user_id, amount, status, application_date, reason, priority_score) VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+        try (PooledConnection conn = openConnection()) {
+            PreparedStatement pstmt = conn.prepareCached(
+                    "INSERT INTO loan_applications (id, user_id, amount, status, application_date, reason, priority_score) VALUES (?, ?, ?, ?, ?, ?, ?)");
             pstmt.setString(1, loan.getId());
             pstmt.setString(2, loan.getUserId());
-            pstmt.setBigDecimal(3, loan.getAmount());
+            pstmt.setLong(3, loan.getAmountMinor());
             pstmt.setString(4, loan.getStatus().name());
-            pstmt.setString(5, loan.getApplicationDate().format(FORMATTER));
+            pstmt.setLong(5, loan.getApplicationDateMillis());
             pstmt.setString(6, loan.getReason());
             pstmt.setInt(7, loan.getPriorityScore());
             pstmt.executeUpdate();
             System.out.println("Loan application added for user: " + loan.getUserId());
-        } finally {
-            closeConnection();
         }
     }
 
-    public void updateLoanApplicationStatus(String loanId, LoanApplication.LoanStatus newStatus) throws SQLException {
-        try (Connection conn = openConnection();
-             PreparedStatement pstmt = conn.prepareStatement("UPDATE loan_applications SET status = ? WHERE id = ?")) {
-            pstmt.setString(1, newStatus.name());
+    public void updateLoanApplicationStatus(String loanId, LoanApplication.LoanStatus newStatus, String adminUserId, long nowMillis) throws SQLException {
+        try (PooledConnection conn = openConnection()) {
+            updateLoanApplicationStatus(conn, loanId, newStatus, adminUserId, nowMillis);
+        }
+    }
+
+    // Decides a loan that is still pending and not leased to an administrator other than adminUserId.
+    // A decided loan is no longer anyone's work item, so its lease is cleared with the status change.
+    // If another process decided or leased the loan first nothing matches and this throws, so the
+    // caller's transaction (disbursement, ledger entry) rolls back with it.
+    void updateLoanApplicationStatus(PooledConnection conn, String loanId, LoanApplication.LoanStatus newStatus,
+                                     String adminUserId, long nowMillis) throws SQLException {
+        PreparedStatement pstmt = conn.prepareCached("UPDATE loan_applications SET status = ?, lease_owner = NULL, lease_expires = NULL " +
+                                                     "WHERE id = ? AND status = 'PENDING' AND (lease_owner IS NULL OR lease_owner = ? OR lease_expires <= ?)");
+        pstmt.setString(1, newStatus.name());
+        pstmt.setString(2, loanId);
+        pstmt.setString(3, adminUserId);
+        pstmt.setLong(4, nowMillis);
+        if (pstmt.executeUpdate() != 1) {
+            LoanApplication stored = getLoanApplicationById(conn, loanId);
+            if (stored != null && stored.getStatus() == LoanApplication.LoanStatus.PENDING) {
+                throw new IllegalStateException("Loan application is leased by another administrator until " +
+                                                Timestamps.toLocalDateTime(stored.getLeaseExpiresAtMillis()) + ".");
+            }
+            throw new IllegalArgumentException("Loan application not found in pending queue or already processed.");
+        }
+        System.out.println("Loan application status updated for: " + loanId);
+    }
+
+    // Changes the priority score of a loan that is still pending and returns the updated row in the
+    // same statement (UPDATE ... RETURNING); null if there is no such pending loan
+    public LoanApplication updateLoanPriority(String loanId, int priorityScore) throws SQLException {
+        try (PooledConnection conn = openConnection()) {
+            PreparedStatement pstmt = conn.prepareCached("UPDATE loan_applications SET priority_score = ? WHERE id = ? AND status = 'PENDING' RETURNING *");
+            pstmt.setInt(1, priorityScore);
             pstmt.setString(2, loanId);
-            pstmt.executeUpdate();
-            System.out.println("Loan application status updated for: " + loanId);
-        } finally {
-            closeConnection();
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? mapLoanApplication(rs) : null;
+            }
+        }
+    }
+
+    // Stores each loan's current lease (owner and expiry, or none) in one transaction. Only pending
+    // loans are touched, so a lease written after a concurrent decision cannot resurrect the loan.
+    public void updateLoanLeases(Collection<LoanApplication> loans) throws SQLException {
+        inTransaction(uow -> {
+            uow.updateLoanLeases(loans);
+            return null;
+        });
+    }
+
+    void updateLoanLeases(PooledConnection conn, Collection<LoanApplication> loans) throws SQLException {
+        PreparedStatement pstmt = conn.prepareCached("UPDATE loan_applications SET lease_owner = ?, lease_expires = ? WHERE id = ? AND status = 'PENDING'");
+        executeInChunks(pstmt, loans, (stmt, loan) -> {
+            if (loan.getLeaseOwnerId() == null) {
+                stmt.setNull(1, Types.VARCHAR);
+                stmt.setNull(2, Types.INTEGER);
+            } else {
+                stmt.setString(1, loan.getLeaseOwnerId());
+                stmt.setLong(2, loan.getLeaseExpiresAtMillis());
+            }
+            stmt.setString(3, loan.getId());
+        });
+    }
+
+    // Returns the stored loan application, or null if there is none with this id
+    public LoanApplication getLoanApplicationById(String loanId) throws SQLException {
+        try (PooledConnection conn = openConnection()) {
+            return getLoanApplicationById(conn, loanId);
+        }
+    }
+
+    LoanApplication getLoanApplicationById(PooledConnection conn, String loanId) throws SQLException {
+        PreparedStatement pstmt = conn.prepareCached(SELECT_LOAN_BY_ID);
+        pstmt.setString(1, loanId);
+        try (ResultSet rs = pstmt.executeQuery()) {
+            return rs.next() ? mapLoanApplication(rs) : null;
         }
     }
 
     public List<LoanApplication> getLoanApplicationsByStatus(LoanApplication.LoanStatus status) throws SQLException {
         List<LoanApplication> loans = new ArrayList<>();
-        try (Connection conn = openConnection();
-             PreparedStatement pstmt = conn.prepareStatement("SELECT * FROM loan_applications WHERE status = ? ORDER BY priority_score ASC, application_date ASC")) {
+        try (PooledConnection conn = openConnection()) {
+            PreparedStatement pstmt = conn.prepareCached(SELECT_LOANS_BY_STATUS);
             pstmt.setString(1, status.name());
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
-                    loans.add(new LoanApplication(
-                            rs.getString("id"),
-                            rs.getString("user_id"),
-                            rs.getBigDecimal("amount"),
-                            LoanApplication.LoanStatus.valueOf(rs.getString("status")),
-                            LocalDateTime.parse(rs.getString("application_date"), FORMATTER),
-                            rs.getString("reason"),
-                            rs.getInt("priority_score")
-                    ));
+                    loans.add(mapLoanApplication(rs));
                 }
             }
-        } finally {
-            closeConnection();
         }
         return loans;
     }
+
+    // Returns a user's most recent loan applications (all statuses), newest first.
+    // Served by idx_loans_user_date, so the cost scales with this user's loans only; limit < 0 means no limit.
+    public List<LoanApplication> getLoanApplicationsByUserId(String userId, int limit) throws SQLException {
+        List<LoanApplication> loans = new ArrayList<>();
+        try (PooledConnection conn = openConnection()) {
+            PreparedStatement pstmt = conn.prepareCached(SELECT_LOANS_BY_USER);
+            pstmt.setString(1, userId);
+            pstmt.setInt(2, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    loans.add(mapLoanApplication(rs));
+                }
+            }
+        }
+        return loans;
+    }
+
+    private LoanApplication mapLoanApplication(ResultSet rs) throws SQLException {
+        LoanApplication loan = new LoanApplication(
+                rs.getString("id"),
+                rs.getString("user_id"),
+                rs.getLong("amount"),
+                LoanApplication.LoanStatus.valueOf(rs.getString("status")),
+                rs.getLong("application_date"),
+                rs.getString("reason"),
+                rs.getInt("priority_score")
+        );
+        String leaseOwner = rs.getString("lease_owner");
+        if (leaseOwner != null) {
+            loan.setLease(leaseOwner, rs.getLong("lease_expires"));
+        }
+        return loan;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,118 @@
+// --- 33. bench/IdBenchmark.java ---
+package bench;
+
+import util.IdGenerator;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Compares primary-key layouts for a transactions-shaped table: random UUID TEXT keys (the original),
+// time-ordered TEXT keys and time-ordered 16-byte BLOB keys. Reports insert throughput and the
+// resulting file size, then checks IdGenerator for duplicates under concurrent callers.
+// Usage: java bench.IdBenchmark [rows] [threads]
+public class IdBenchmark {
+    private static final int BATCH_SIZE = 1_000;
+    private static final int ACCOUNTS = 1_000;
+
+    @FunctionalInterface
+    private interface KeyBinder {
+        void bind(PreparedStatement pstmt) throws SQLException;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 300_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+
+        run("TEXT random UUID", "TEXT", rows, pstmt -> pstmt.setString(1, UUID.randomUUID().toString()));
+        run("TEXT time-ordered", "TEXT", rows, pstmt -> pstmt.setString(1, IdGenerator.generateUniqueId()));
+        run("BLOB time-ordered", "BLOB", rows, pstmt -> pstmt.setBytes(1, IdGenerator.generateUniqueIdBytes()));
+
+        generateConcurrently(threads, rows);
+    }
+
+    private static void run(String label, String keyType, int rows, KeyBinder keyBinder) throws Exception {
+        File dbFile = Files.createTempFile("id-bench", ".db").toFile();
+        dbFile.deleteOnExit();
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + dbFile.getPath());
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA journal_mode = WAL");
+            stmt.execute("PRAGMA synchronous = NORMAL");
+            stmt.execute("CREATE TABLE transactions (id " + keyType + " PRIMARY KEY NOT NULL, account_id TEXT NOT NULL, " +
+                         "amount INTEGER NOT NULL, timestamp INTEGER NOT NULL)");
+            stmt.execute("CREATE INDEX idx_transactions_account_time_id ON transactions (account_id, timestamp, id)");
+
+            conn.setAutoCommit(false);
+            long start = System.nanoTime();
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "INSERT INTO transactions (id, account_id, amount, timestamp) VALUES (?, ?, ?, ?)")) {
+                for (int i = 0; i < rows; i++) {
+                    keyBinder.bind(pstmt);
+                    pstmt.setString(2, "account-" + (i % ACCOUNTS));
+                    pstmt.setLong(3, 100 + i % 10_000);
+                    pstmt.setLong(4, System.currentTimeMillis());
+                    pstmt.addBatch();
+                    if ((i + 1) % BATCH_SIZE == 0) {
+                        pstmt.executeBatch();
+                        conn.commit();
+                    }
+                }
+                pstmt.executeBatch();
+                conn.commit();
+            }
+            long elapsed = System.nanoTime() - start;
+            conn.setAutoCommit(true);
+            stmt.execute("PRAGMA wal_checkpoint(TRUNCATE)");
+
+            long pages;
+            try (ResultSet rs = stmt.executeQuery("PRAGMA page_count")) {
+                pages = rs.next() ? rs.getLong(1) : 0;
+            }
+            System.out.printf("%-20s %,10d rows  %,10.0f rows/s  %,8d pages  %6.1f MB%n",
+                    label, rows, rows * 1e9 / elapsed, pages, dbFile.length() / (1024.0 * 1024.0));
+        }
+    }
+
+    private static void generateConcurrently(int threads, int idsPerThread) throws InterruptedException {
+        Set<String> seen = ConcurrentHashMap.newKeySet(threads * idsPerThread);
+        Thread[] workers = new Thread[threads];
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                String previous = "";
+                for (int i = 0; i < idsPerThread; i++) {
+                    String id = IdGenerator.generateUniqueId();
+                    if (id.compareTo(previous) <= 0) {
+                        throw new IllegalStateException("IDs went backwards: " + previous + " -> " + id);
+                    }
+                    previous = id;
+                    seen.add(id);
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsed = System.nanoTime() - start;
+        int expected = threads * idsPerThread;
+        System.out.printf("Concurrent generation: %d threads, %,d IDs, %,d unique, %,.0f IDs/s%n",
+                threads, expected, seen.size(), expected * 1e9 / elapsed);
+
+        Set<String> roundTrip = new HashSet<>();
+        for (int i = 0; i < 1_000; i++) {
+            String id = IdGenerator.generateUniqueId();
+            roundTrip.add(IdGenerator.fromBytes(IdGenerator.toBytes(id)).equals(id) ? "ok" : id);
+        }
+        System.out.println("BLOB round trip: " + (roundTrip.size() == 1 && roundTrip.contains("ok") ? "ok" : "MISMATCH " + roundTrip));
+    }
+}
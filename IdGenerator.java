@@ -1,11 +1,107 @@
 // --- 6. util/IdGenerator.java ---
 package util;
 
-import java.util.UUID;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
 
-// IdGenerator is a helper class for generating unique IDs
+// IdGenerator is a helper class for generating unique IDs.
+// IDs are 128-bit and time-ordered (ULID layout): a 48-bit millisecond timestamp and a 16-bit
+// sequence in the high half, 64 random bits in the low half. They are written as 26 Crockford
+// base32 characters, so string order is creation order and new primary keys append to the
+// right edge of the SQLite B-tree instead of landing at random pages like UUID.randomUUID().
 public class IdGenerator {
+    public static final int ID_LENGTH = 26;
+    public static final int ID_BYTES = 16;
+
+    private static final char[] ENCODING = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final byte[] DECODING = new byte[128];
+    static {
+        Arrays.fill(DECODING, (byte) -1);
+        for (int i = 0; i < ENCODING.length; i++) {
+            DECODING[ENCODING[i]] = (byte) i;
+            DECODING[Character.toLowerCase(ENCODING[i])] = (byte) i;
+        }
+    }
+
+    // High 64 bits of the most recent ID. Advanced with CAS so concurrent callers never block
+    // and never see the same or a smaller value.
+    private static final AtomicLong lastHigh = new AtomicLong();
+
     public static String generateUniqueId() {
-        return UUID.randomUUID().toString();
+        return encode(nextHigh(), ThreadLocalRandom.current().nextLong());
+    }
+
+    // 16-byte form of generateUniqueId(), for BLOB keys
+    public static byte[] generateUniqueIdBytes() {
+        return toBytes(nextHigh(), ThreadLocalRandom.current().nextLong());
+    }
+
+    private static long nextHigh() {
+        long candidate = System.currentTimeMillis() << 16;
+        while (true) {
+            long last = lastHigh.get();
+            // Same millisecond (or the clock stepped back): bump the sequence instead
+            long next = candidate > last ? candidate : last + 1;
+            if (lastHigh.compareAndSet(last, next)) {
+                return next;
+            }
+        }
+    }
+
+    // Short label for display: the last 8 characters, which are random. A prefix would not do, since
+    // the leading characters are the timestamp and IDs created within about a second share them.
+    public static String shortId(String id) {
+        return id.length() <= 8 ? id : id.substring(id.length() - 8);
+    }
+
+    // Millisecond timestamp embedded in an ID
+    public static long timestampOf(String id) {
+        return ByteBuffer.wrap(toBytes(id)).getLong() >>> 16;
+    }
+
+    // --- BLOB codec: the 26-character text form <-> 16 big-endian bytes (byte order = sort order) ---
+    public static byte[] toBytes(String id) {
+        if (id == null || id.length() != ID_LENGTH || decodeChar(id.charAt(0)) > 7) {
+            throw new IllegalArgumentException("Not a " + ID_LENGTH + "-character ID: " + id);
+        }
+        long high = 0;
+        long low = 0;
+        for (int i = 0; i < ID_LENGTH; i++) {
+            high = (high << 5) | (low >>> 59);
+            low = (low << 5) | decodeChar(id.charAt(i));
+        }
+        return toBytes(high, low);
+    }
+
+    public static String fromBytes(byte[] bytes) {
+        if (bytes == null || bytes.length != ID_BYTES) {
+            throw new IllegalArgumentException("An ID is exactly " + ID_BYTES + " bytes.");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return encode(buffer.getLong(), buffer.getLong());
+    }
+
+    private static byte[] toBytes(long high, long low) {
+        return ByteBuffer.allocate(ID_BYTES).putLong(high).putLong(low).array();
+    }
+
+    private static String encode(long high, long low) {
+        char[] chars = new char[ID_LENGTH];
+        for (int i = ID_LENGTH - 1; i >= 0; i--) {
+            chars[i] = ENCODING[(int) (low & 31)];
+            low = (low >>> 5) | (high << 59);
+            high >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    private static int decodeChar(char c) {
+        int value = c < DECODING.length ? DECODING[c] : -1;
+        if (value < 0) {
+            throw new IllegalArgumentException("Invalid ID character: " + c);
+        }
+        return value;
     }
 }
@@ -0,0 +1,180 @@
+// --- 47. util/IndexedLoanHeap.java ---
+package util;
+
+import model.LoanApplication;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+// IndexedLoanHeap is a binary min-heap of loan applications (LoanPriorityComparator order: lowest
+// priority score first, then oldest) with a loan id -> array position index. Besides the usual
+// O(log n) offer/poll it supports O(log n) remove by id and O(log n) re-prioritization, which a
+// java.util.PriorityQueue can only do with an O(n) scan. top(k) returns the k best loans in order
+// in O(k log k) without copying or sorting the whole heap.
+// Not thread-safe; LoanWorkQueue owns it and guards it with its own monitor.
+public class IndexedLoanHeap {
+    private final Comparator<LoanApplication> comparator;
+    private final List<LoanApplication> heap = new ArrayList<>();
+    private final Map<String, Integer> positions = new HashMap<>();
+
+    public IndexedLoanHeap() {
+        this(new LoanPriorityComparator());
+    }
+
+    public IndexedLoanHeap(Comparator<LoanApplication> comparator) {
+        this.comparator = comparator;
+    }
+
+    // Adds a loan; false if a loan with the same id is already queued
+    public boolean offer(LoanApplication loan) {
+        if (positions.containsKey(loan.getId())) {
+            return false;
+        }
+        heap.add(loan);
+        positions.put(loan.getId(), heap.size() - 1);
+        siftUp(heap.size() - 1);
+        return true;
+    }
+
+    public LoanApplication peek() {
+        return heap.isEmpty() ? null : heap.get(0);
+    }
+
+    public LoanApplication poll() {
+        return heap.isEmpty() ? null : removeAt(0);
+    }
+
+    // Removes and returns the loan with this id, or null if it is not queued
+    public LoanApplication remove(String loanId) {
+        Integer position = positions.get(loanId);
+        return position == null ? null : removeAt(position);
+    }
+
+    public LoanApplication get(String loanId) {
+        Integer position = positions.get(loanId);
+        return position == null ? null : heap.get(position);
+    }
+
+    public boolean contains(String loanId) {
+        return positions.containsKey(loanId);
+    }
+
+    // Changes a queued loan's priority score and restores heap order; false if it is not queued
+    public boolean updatePriority(String loanId, int newPriorityScore) {
+        Integer position = positions.get(loanId);
+        if (position == null) {
+            return false;
+        }
+        LoanApplication loan = heap.get(position);
+        int oldPriorityScore = loan.getPriorityScore();
+        loan.setPriorityScore(newPriorityScore);
+        if (newPriorityScore < oldPriorityScore) {
+            siftUp(position);
+        } else if (newPriorityScore > oldPriorityScore) {
+            siftDown(position);
+        }
+        return true;
+    }
+
+    // The k highest-priority loans in priority order. Walks the heap best-first with a frontier of
+    // candidate positions: each step takes the best candidate and adds its two children.
+    public List<LoanApplication> top(int k) {
+        int limit = Math.min(Math.max(k, 0), heap.size());
+        List<LoanApplication> result = new ArrayList<>(limit);
+        if (limit == 0) {
+            return result;
+        }
+        PriorityQueue<Integer> frontier = new PriorityQueue<>(Math.min(limit + 1, heap.size()),
+                (a, b) -> comparator.compare(heap.get(a), heap.get(b)));
+        frontier.add(0);
+        while (result.size() < limit) {
+            int position = frontier.poll();
+            result.add(heap.get(position));
+            int left = 2 * position + 1;
+            if (left < heap.size()) {
+                frontier.add(left);
+                if (left + 1 < heap.size()) {
+                    frontier.add(left + 1);
+                }
+            }
+        }
+        return result;
+    }
+
+    // Every queued loan in priority order
+    public List<LoanApplication> sorted() {
+        return top(heap.size());
+    }
+
+    public int size() {
+        return heap.size();
+    }
+
+    public boolean isEmpty() {
+        return heap.isEmpty();
+    }
+
+    public void clear() {
+        heap.clear();
+        positions.clear();
+    }
+
+    // --- Heap maintenance ---
+    private LoanApplication removeAt(int position) {
+        LoanApplication removed = heap.get(position);
+        positions.remove(removed.getId());
+        int last = heap.size() - 1;
+        LoanApplication moved = heap.remove(last);
+        if (position != last) {
+            heap.set(position, moved);
+            positions.put(moved.getId(), position);
+            siftDown(position);
+            siftUp(position); // The moved loan may belong above its new position instead
+        }
+        return removed;
+    }
+
+    private void siftUp(int position) {
+        LoanApplication loan = heap.get(position);
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            LoanApplication parentLoan = heap.get(parent);
+            if (comparator.compare(loan, parentLoan) >= 0) {
+                break;
+            }
+            place(parentLoan, position);
+            position = parent;
+        }
+        place(loan, position);
+    }
+
+    private void siftDown(int position) {
+        LoanApplication loan = heap.get(position);
+        int size = heap.size();
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && comparator.compare(heap.get(child + 1), heap.get(child)) < 0) {
+                child++;
+            }
+            LoanApplication childLoan = heap.get(child);
+            if (comparator.compare(childLoan, loan) >= 0) {
+                break;
+            }
+            place(childLoan, position);
+            position = child;
+        }
+        place(loan, position);
+    }
+
+    private void place(LoanApplication loan, int position) {
+        heap.set(position, loan);
+        positions.put(loan.getId(), position);
+    }
+}
@@ -0,0 +1,375 @@
+// --- 40. service/LedgerSequencer.java ---
+package service;
+
+import db.DatabaseManager;
+import model.Account;
+import model.LoanApplication;
+import model.Money;
+import model.Timestamps;
+import model.Transaction;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+// LedgerSequencer is the single writer behind ConcurrencyMode.SEQUENCED.
+// Callers publish balance commands onto a bounded multi-producer ring buffer (one atomic increment,
+// no locks) and get a future back. One writer thread takes commands in sequence order, applies
+// them to an in-memory balance table it alone owns, and flushes everything it took in one SQLite
+// transaction (group commit). Futures complete once that commit is durable; a rejected command
+// (unknown account, insufficient funds, ...) fails immediately without touching the database.
+// While the writer commits one batch the next one queues up, so batches grow with load.
+// The writer never completes a future itself: each batch's outcomes are handed to an executor, so
+// dependent stages run there. A slow callback cannot stall group commit, and a callback that
+// publishes while the ring is full waits for a writer that is still free to drain it.
+public class LedgerSequencer implements AutoCloseable {
+    public static final int DEFAULT_CAPACITY = 8_192;
+    public static final int MAX_BATCH_SIZE = 1_024;
+    public static final int MAX_RESIDENT_ACCOUNTS = 65_536; // Balance table size kept between batches
+    private static final long IDLE_PARK_NANOS = 200_000; // Writer re-checks at least this often when idle
+
+    private enum CommandType { DEPOSIT, WITHDRAW, TRANSFER, LOAN_APPROVAL }
+
+    private static final class Command {
+        final CommandType type;
+        final String userId; // Who must own the (source) account
+        final String accountId;
+        final String counterpartyAccountId; // Transfer destination
+        final long amountMinor;
+        final LoanApplication loan;
+        final String adminUserId; // Who decides the loan
+        final CompletableFuture<List<Account>> future = new CompletableFuture<>();
+
+        Command(CommandType type, String userId, String accountId, String counterpartyAccountId, long amountMinor,
+                LoanApplication loan, String adminUserId) {
+            this.type = type;
+            this.userId = userId;
+            this.accountId = accountId;
+            this.counterpartyAccountId = counterpartyAccountId;
+            this.amountMinor = amountMinor;
+            this.loan = loan;
+            this.adminUserId = adminUserId;
+        }
+    }
+
+    private final DatabaseManager dbManager;
+    private final AccountCache accountCache;
+    private final Executor completionExecutor;
+
+    // Ring buffer: producers claim sequence numbers from tail, the writer consumes from head
+    private final AtomicReferenceArray<Command> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head; // Written only by the writer thread
+
+    private final Thread writer;
+    private volatile boolean writerIdle;
+    private volatile boolean closing;
+    // Producers between their closing check and their slot write. The writer only exits once this is
+    // zero, so a command admitted just before close() can never land in a slot nobody drains.
+    private final AtomicInteger publishing = new AtomicInteger();
+
+    // Owned by the writer thread: authoritative balances of recently touched accounts, least recently
+    // used first. Trimmed to MAX_RESIDENT_ACCOUNTS between batches (never during one: a batch's
+    // uncommitted balances live only here); an evicted account is simply re-read when next used.
+    private final LinkedHashMap<String, Account> balances = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final AtomicLong committedBatches = new AtomicLong();
+    private final AtomicLong committedCommands = new AtomicLong();
+
+    public LedgerSequencer(DatabaseManager dbManager, AccountCache accountCache) {
+        this(dbManager, accountCache, DEFAULT_CAPACITY);
+    }
+
+    public LedgerSequencer(DatabaseManager dbManager, AccountCache accountCache, int capacity) {
+        this(dbManager, accountCache, capacity, AsyncBankingService.defaultExecutor());
+    }
+
+    public LedgerSequencer(DatabaseManager dbManager, AccountCache accountCache, int capacity, Executor completionExecutor) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ring buffer capacity must be a power of two.");
+        }
+        this.dbManager = dbManager;
+        this.accountCache = accountCache;
+        this.completionExecutor = completionExecutor;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+        this.writer = new Thread(this::runWriter, "ledger-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    // --- Commands (each future yields the affected accounts after the commit) ---
+    public CompletableFuture<List<Account>> deposit(String userId, String accountId, long amountMinor) {
+        return publish(new Command(CommandType.DEPOSIT, userId, accountId, null, amountMinor, null, null));
+    }
+
+    public CompletableFuture<List<Account>> withdraw(String userId, String accountId, long amountMinor) {
+        return publish(new Command(CommandType.WITHDRAW, userId, accountId, null, amountMinor, null, null));
+    }
+
+    // Yields [source, destination]
+    public CompletableFuture<List<Account>> transfer(String userId, String fromAccountId, String toAccountId, long amountMinor) {
+        return publish(new Command(CommandType.TRANSFER, userId, fromAccountId, toAccountId, amountMinor, null, null));
+    }
+
+    // The loan must already be taken off the pending heap by the caller; adminUserId is who decides it
+    public CompletableFuture<List<Account>> approveLoan(LoanApplication loan, String recipientAccountId, String adminUserId) {
+        return publish(new Command(CommandType.LOAN_APPROVAL, loan.getUserId(), recipientAccountId, null, loan.getAmountMinor(), loan, adminUserId));
+    }
+
+    private CompletableFuture<List<Account>> publish(Command command) {
+        publishing.incrementAndGet(); // Announced before the closing check; see runWriter's exit test
+        try {
+            if (closing) {
+                return CompletableFuture.failedFuture(new IllegalStateException("The ledger sequencer is shut down."));
+            }
+            long sequence = tail.getAndIncrement();
+            while (sequence - head >= slots.length()) { // Full: wait for the writer to free a slot
+                LockSupport.parkNanos(1_000);
+            }
+            slots.set((int) (sequence & mask), command);
+        } finally {
+            publishing.decrementAndGet();
+        }
+        if (writerIdle) {
+            LockSupport.unpark(writer);
+        }
+        return command.future;
+    }
+
+    // --- Writer thread ---
+    private void runWriter() {
+        List<Command> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        while (true) {
+            drainInto(batch);
+            if (batch.isEmpty()) {
+                // closing is set before publishing is read, and producers raise publishing before reading
+                // closing, so either a producer sees closing and backs off or the writer sees it and waits
+                if (closing && publishing.get() == 0 && head == tail.get()) {
+                    return;
+                }
+                writerIdle = true;
+                if (slots.get((int) (head & mask)) == null) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+                writerIdle = false;
+                continue;
+            }
+            process(batch);
+            batch.clear();
+            trimBalances();
+        }
+    }
+
+    private void trimBalances() {
+        Iterator<Account> eldest = balances.values().iterator();
+        for (int excess = balances.size() - MAX_RESIDENT_ACCOUNTS; excess > 0; excess--) {
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    private void drainInto(List<Command> batch) {
+        long next = head;
+        while (batch.size() < MAX_BATCH_SIZE) {
+            int index = (int) (next & mask);
+            Command command = slots.get(index);
+            if (command == null) {
+                break; // Not yet published (or nothing claimed)
+            }
+            slots.set(index, null);
+            batch.add(command);
+            next++;
+            head = next; // Frees the slot for producers
+        }
+    }
+
+    private void process(List<Command> batch) {
+        List<Runnable> completions = new ArrayList<>(batch.size());
+        try {
+            process(batch, completions);
+        } finally {
+            complete(completions);
+        }
+    }
+
+    // Applies and commits one batch, recording how each command's future is to be completed
+    private void process(List<Command> batch, List<Runnable> completions) {
+        List<Command> accepted = new ArrayList<>(batch.size());
+        List<List<Account>> touchedByCommand = new ArrayList<>(batch.size());
+        Map<String, Account> touched = new LinkedHashMap<>();
+        List<Transaction> ledger = new ArrayList<>();
+        List<Command> loanApprovals = new ArrayList<>();
+
+        for (Command command : batch) {
+            try {
+                List<Account> accounts = apply(command, ledger, loanApprovals);
+                for (Account account : accounts) {
+                    touched.put(account.getId(), account);
+                }
+                accepted.add(command);
+                touchedByCommand.add(accounts);
+            } catch (SQLException | RuntimeException e) {
+                completions.add(() -> command.future.completeExceptionally(e));
+            }
+        }
+        if (accepted.isEmpty()) {
+            return;
+        }
+
+        Map<String, Long> newBalances = new HashMap<>();
+        for (Account account : touched.values()) {
+            newBalances.put(account.getId(), account.getBalanceMinor());
+        }
+        try {
+            dbManager.inTransaction(uow -> {
+                uow.updateAccountBalances(newBalances);
+                uow.addTransactions(ledger);
+                long nowMillis = Timestamps.nowMillis();
+                for (Command approval : loanApprovals) {
+                    uow.updateLoanApplicationStatus(approval.loan.getId(), LoanApplication.LoanStatus.APPROVED, approval.adminUserId, nowMillis);
+                }
+                return null;
+            });
+        } catch (SQLException | RuntimeException e) {
+            balances.clear(); // In-memory state ran ahead of the database; reload it on next use
+            for (Command command : accepted) {
+                completions.add(() -> command.future.completeExceptionally(e));
+            }
+            return;
+        }
+
+        committedBatches.incrementAndGet();
+        committedCommands.addAndGet(accepted.size());
+        Map<String, Account> snapshots = new HashMap<>();
+        for (Account account : touched.values()) {
+            account.setVersion(account.getVersion() + 1); // One UPDATE per account per batch
+            Account snapshot = new Account(account.getId(), account.getUserId(), account.getType(), account.getBalanceMinor(), account.getVersion());
+            snapshots.put(account.getId(), snapshot);
+            accountCache.put(snapshot);
+        }
+        for (int i = 0; i < accepted.size(); i++) {
+            List<Account> result = new ArrayList<>(touchedByCommand.get(i).size());
+            for (Account account : touchedByCommand.get(i)) {
+                result.add(snapshots.get(account.getId()));
+            }
+            CompletableFuture<List<Account>> future = accepted.get(i).future;
+            completions.add(() -> future.complete(result));
+        }
+    }
+
+    // Runs a batch's completions in order on the completion executor, or here if it refuses them
+    private void complete(List<Runnable> completions) {
+        if (completions.isEmpty()) {
+            return;
+        }
+        Runnable task = () -> completions.forEach(Runnable::run);
+        try {
+            completionExecutor.execute(task);
+        } catch (RuntimeException e) { // Executor rejected the task (e.g. shut down)
+            task.run();
+        }
+    }
+
+    // Validates one command against the in-memory balances and applies it there
+    private List<Account> apply(Command command, List<Transaction> ledger, List<Command> loanApprovals) throws SQLException {
+        switch (command.type) {
+            case DEPOSIT: {
+                Account account = load(command.accountId, "Account not found.");
+                requireOwner(account, command.userId, "Account does not belong to the current user.");
+                account.setBalanceMinor(Money.add(account.getBalanceMinor(), command.amountMinor));
+                ledger.add(new Transaction(account.getId(), null, command.amountMinor, Transaction.TransactionType.DEPOSIT, "Deposit"));
+                return List.of(account);
+            }
+            case WITHDRAW: {
+                Account account = load(command.accountId, "Account not found.");
+                requireOwner(account, command.userId, "Account does not belong to the current user.");
+                if (account.getBalanceMinor() < command.amountMinor) {
+                    throw new IllegalArgumentException("Insufficient funds.");
+                }
+                account.setBalanceMinor(Money.subtract(account.getBalanceMinor(), command.amountMinor));
+                ledger.add(new Transaction(account.getId(), null, command.amountMinor, Transaction.TransactionType.WITHDRAWAL, "Withdrawal"));
+                return List.of(account);
+            }
+            case TRANSFER: {
+                Account account = load(command.accountId, "One or both accounts not found.");
+                Account destination = load(command.counterpartyAccountId, "One or both accounts not found.");
+                requireOwner(account, command.userId, "Source account does not belong to the current user.");
+                if (account.getBalanceMinor() < command.amountMinor) {
+                    throw new IllegalArgumentException("Insufficient funds in source account.");
+                }
+                account.setBalanceMinor(Money.subtract(account.getBalanceMinor(), command.amountMinor));
+                destination.setBalanceMinor(Money.add(destination.getBalanceMinor(), command.amountMinor));
+                ledger.add(new Transaction(account.getId(), destination.getId(), command.amountMinor, Transaction.TransactionType.TRANSFER_OUT, "Transfer to " + destination.getId()));
+                ledger.add(new Transaction(destination.getId(), account.getId(), command.amountMinor, Transaction.TransactionType.TRANSFER_IN, "Transfer from " + account.getId()));
+                return List.of(account, destination);
+            }
+            case LOAN_APPROVAL: {
+                Account account = load(command.accountId, "Recipient account for loan approval not found.");
+                requireOwner(account, command.userId, "Recipient account does not belong to the loan applicant.");
+                // Another process may have decided or leased the loan; refuse it here so that only this command
+                // fails. The conditional status update at commit still guards the window until then.
+                LoanApplication stored = dbManager.getLoanApplicationById(command.loan.getId());
+                if (stored == null || stored.getStatus() != LoanApplication.LoanStatus.PENDING) {
+                    throw new IllegalArgumentException("Loan application not found in pending queue or already processed.");
+                }
+                if (stored.isLeasedAt(Timestamps.nowMillis()) && !stored.getLeaseOwnerId().equals(command.adminUserId)) {
+                    throw new IllegalStateException("Loan application is leased by another administrator until " +
+                                                    Timestamps.toLocalDateTime(stored.getLeaseExpiresAtMillis()) + ".");
+                }
+                account.setBalanceMinor(Money.add(account.getBalanceMinor(), command.amountMinor));
+                ledger.add(new Transaction(account.getId(), null, command.amountMinor, Transaction.TransactionType.DEPOSIT, "Loan Approved: " + command.loan.getId()));
+                loanApprovals.add(command);
+                return List.of(account);
+            }
+            default:
+                throw new IllegalStateException("Unknown command type: " + command.type);
+        }
+    }
+
+    // Returns the in-memory account, reading it from the database on first use
+    private Account load(String accountId, String notFoundMessage) throws SQLException {
+        Account account = balances.get(accountId);
+        if (account == null) {
+            account = dbManager.getAccountById(accountId);
+            if (account == null) {
+                throw new IllegalArgumentException(notFoundMessage);
+            }
+            balances.put(accountId, account);
+        }
+        return account;
+    }
+
+    private static void requireOwner(Account account, String userId, String message) {
+        if (!account.getUserId().equals(userId)) {
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    // Statistics
+    public long getCommittedBatchCount() { return committedBatches.get(); }
+    public long getCommittedCommandCount() { return committedCommands.get(); }
+
+    // Stops accepting commands, lets the writer flush everything already published, then returns
+    @Override
+    public void close() {
+        closing = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,557 @@
+// --- 44. bench/LoadGenerator.java ---
+package bench;
+
+import model.Account;
+import model.LoanApplication;
+import service.BankingService;
+import service.Session;
+import util.Json;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Drives a weighted mix of banking operations at a ledger, in-process (a BankingService on a temp
+// database, honouring -Dbank.concurrency) or over HTTP against `DSA.Main --server`. For each thread
+// count in --threads it runs the mix for --duration seconds after a --warmup, then prints throughput
+// and p50/p99/p99.9/max latency per operation with rejection (business rule, e.g. insufficient
+// funds) and error counts. Throughput that stops rising while p99 climbs is the saturation point.
+//
+// Usage: java bench.LoadGenerator [--threads 1,2,4,8] [--duration 10] [--warmup 2] [--users 100]
+//            [--mix login=5,deposit=30,withdraw=20,transfer=35,loan=5,approve=5]
+//            [--url http://localhost:8080 --admin user:password]
+// Over HTTP the users are registered through the API; approvals need an existing --admin account.
+public class LoadGenerator {
+    private enum Op { LOGIN, DEPOSIT, WITHDRAW, TRANSFER, LOAN, APPROVE }
+
+    private static final String PASSWORD = "loadgen-secret";
+    private static final int ACCOUNTS_PER_USER = 2;
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000.00");
+
+    // Thrown by backends when the ledger refuses an operation (HTTP 400, IllegalArgumentException)
+    private static final class RejectedException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        RejectedException(String message) {
+            super(message);
+        }
+    }
+
+    // What the generator needs from the system under test; tokens identify sessions
+    private interface Backend {
+        void register(String username) throws Exception;
+        String login(String username, String password) throws Exception;
+        void logout(String token) throws Exception;
+        String createAccount(String token) throws Exception;
+        void deposit(String token, String accountId, BigDecimal amount) throws Exception;
+        void withdraw(String token, String accountId, BigDecimal amount) throws Exception;
+        void transfer(String token, String fromAccountId, String toAccountId, BigDecimal amount) throws Exception;
+        String applyForLoan(String token, BigDecimal amount) throws Exception;
+        void approveLoan(String adminToken, String loanId, String accountId) throws Exception;
+        void close();
+    }
+
+    private static final class LoadUser {
+        final String username;
+        final String token;
+        final List<String> accountIds;
+
+        LoadUser(String username, String token, List<String> accountIds) {
+            this.username = username;
+            this.token = token;
+            this.accountIds = accountIds;
+        }
+    }
+
+    private static final class PendingLoan {
+        final String loanId;
+        final String accountId;
+
+        PendingLoan(String loanId, String accountId) {
+            this.loanId = loanId;
+            this.accountId = accountId;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        int[] threadCounts = parseInts(options.getOrDefault("threads", "1,2,4,8"));
+        int durationSeconds = Integer.parseInt(options.getOrDefault("duration", "10"));
+        int warmupSeconds = Integer.parseInt(options.getOrDefault("warmup", "2"));
+        int userCount = Integer.parseInt(options.getOrDefault("users", "100"));
+        int[] weights = parseMix(options.getOrDefault("mix", "login=5,deposit=30,withdraw=20,transfer=35,loan=5,approve=5"));
+        String url = options.get("url");
+
+        PrintStream out = System.out;
+        Backend backend;
+        String adminToken;
+        if (url == null) {
+            File dbFile = Files.createTempFile("loadgen", ".db").toFile();
+            dbFile.deleteOnExit();
+            System.setOut(new PrintStream(OutputStream.nullOutputStream())); // The service logs every operation
+            InProcessBackend inProcess = new InProcessBackend(new BankingService(dbFile.getPath()));
+            inProcess.service.registerUser("loadgen-admin", PASSWORD, "Load Generator Admin", true);
+            adminToken = inProcess.login("loadgen-admin", PASSWORD);
+            backend = inProcess;
+            out.println("Target: in-process BankingService (" + inProcess.service.getConcurrencyMode() + ") on " + dbFile);
+        } else {
+            backend = new HttpBackend(url);
+            String admin = options.get("admin");
+            adminToken = admin == null ? null : backend.login(admin.substring(0, admin.indexOf(':')), admin.substring(admin.indexOf(':') + 1));
+            out.println("Target: " + url + (adminToken == null ? " (no --admin: approvals are skipped)" : ""));
+        }
+
+        try {
+            List<LoadUser> users = seed(backend, userCount, System.nanoTime());
+            out.printf("Seeded %d users x %d accounts; mix %s%n", users.size(), ACCOUNTS_PER_USER, describeMix(weights));
+            Queue<PendingLoan> pendingLoans = new ConcurrentLinkedQueue<>();
+            for (int threads : threadCounts) {
+                run(backend, users, adminToken, pendingLoans, weights, threads, warmupSeconds, false);
+                Result result = run(backend, users, adminToken, pendingLoans, weights, threads, durationSeconds, true);
+                result.print(out, threads);
+            }
+        } finally {
+            System.setOut(out);
+            backend.close();
+        }
+    }
+
+    private static List<LoadUser> seed(Backend backend, int userCount, long runId) throws Exception {
+        List<LoadUser> users = new ArrayList<>(userCount);
+        for (int u = 0; u < userCount; u++) {
+            String username = "load-" + Long.toString(runId, 36) + "-" + u; // Unique per run, so a shared server can be reused
+            backend.register(username);
+            String token = backend.login(username, PASSWORD);
+            List<String> accountIds = new ArrayList<>(ACCOUNTS_PER_USER);
+            for (int a = 0; a < ACCOUNTS_PER_USER; a++) {
+                accountIds.add(backend.createAccount(token));
+            }
+            users.add(new LoadUser(username, token, accountIds));
+        }
+        return users;
+    }
+
+    // --- Running one level ---
+    private static Result run(Backend backend, List<LoadUser> users, String adminToken, Queue<PendingLoan> pendingLoans,
+                              int[] weights, int threads, int seconds, boolean measured) throws InterruptedException {
+        Result[] perThread = new Result[threads];
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>(threads);
+        long[] deadline = new long[1];
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            perThread[t] = new Result();
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                Result result = perThread[thread];
+                while (System.nanoTime() < deadline[0]) {
+                    Op op = pick(weights, random);
+                    if (op == Op.APPROVE && adminToken == null) {
+                        op = Op.LOAN;
+                    }
+                    long begin = System.nanoTime();
+                    try {
+                        if (!execute(op, backend, users, adminToken, pendingLoans, random)) {
+                            result.skipped[op.ordinal()]++;
+                            continue;
+                        }
+                        result.latencies[op.ordinal()].record(System.nanoTime() - begin);
+                    } catch (RejectedException e) {
+                        result.latencies[op.ordinal()].record(System.nanoTime() - begin);
+                        result.rejected[op.ordinal()]++;
+                    } catch (Exception e) {
+                        result.errors[op.ordinal()]++;
+                        result.lastError = op + ": " + e;
+                    }
+                }
+            }, "loadgen-" + t);
+            worker.start();
+            workers.add(worker);
+        }
+        deadline[0] = System.nanoTime() + seconds * 1_000_000_000L;
+        long begin = System.nanoTime();
+        start.countDown(); // Publishes deadline to the workers
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        Result total = new Result();
+        total.elapsedNanos = System.nanoTime() - begin;
+        for (Result result : perThread) {
+            total.merge(result);
+        }
+        return measured ? total : null;
+    }
+
+    // Returns false when the operation could not be attempted (no pending loan to approve)
+    private static boolean execute(Op op, Backend backend, List<LoadUser> users, String adminToken,
+                                   Queue<PendingLoan> pendingLoans, ThreadLocalRandom random) throws Exception {
+        LoadUser user = users.get(random.nextInt(users.size()));
+        String accountId = user.accountIds.get(random.nextInt(user.accountIds.size()));
+        switch (op) {
+            case LOGIN:
+                backend.logout(backend.login(user.username, PASSWORD)); // Timed as a login; the logout is cheap
+                return true;
+            case DEPOSIT:
+                backend.deposit(user.token, accountId, amount(random, 5_000));
+                return true;
+            case WITHDRAW:
+                backend.withdraw(user.token, accountId, amount(random, 4_000));
+                return true;
+            case TRANSFER: {
+                LoadUser other = users.get(random.nextInt(users.size()));
+                String toAccountId = other.accountIds.get(random.nextInt(other.accountIds.size()));
+                if (toAccountId.equals(accountId)) {
+                    toAccountId = user.accountIds.get((user.accountIds.indexOf(accountId) + 1) % user.accountIds.size());
+                }
+                backend.transfer(user.token, accountId, toAccountId, amount(random, 5_000));
+                return true;
+            }
+            case LOAN:
+                pendingLoans.add(new PendingLoan(backend.applyForLoan(user.token, amount(random, 100_000)), accountId));
+                return true;
+            case APPROVE: {
+                PendingLoan loan = pendingLoans.poll();
+                if (loan == null) {
+                    return false;
+                }
+                backend.approveLoan(adminToken, loan.loanId, loan.accountId);
+                return true;
+            }
+            default:
+                throw new IllegalStateException("Unknown operation: " + op);
+        }
+    }
+
+    // 0.01 .. maxCents/100
+    private static BigDecimal amount(ThreadLocalRandom random, int maxCents) {
+        return BigDecimal.valueOf(1 + random.nextInt(maxCents), 2);
+    }
+
+    private static Op pick(int[] weights, ThreadLocalRandom random) {
+        int roll = random.nextInt(weights[weights.length - 1]);
+        for (int i = 0; i < weights.length; i++) {
+            if (roll < weights[i]) {
+                return Op.values()[i];
+            }
+        }
+        throw new IllegalStateException("Empty mix.");
+    }
+
+    // --- Results ---
+    private static final class Result {
+        final Histogram[] latencies = new Histogram[Op.values().length];
+        final long[] rejected = new long[Op.values().length];
+        final long[] errors = new long[Op.values().length];
+        final long[] skipped = new long[Op.values().length];
+        String lastError;
+        long elapsedNanos;
+
+        Result() {
+            for (int i = 0; i < latencies.length; i++) {
+                latencies[i] = new Histogram();
+            }
+        }
+
+        void merge(Result other) {
+            for (int i = 0; i < latencies.length; i++) {
+                latencies[i].merge(other.latencies[i]);
+                rejected[i] += other.rejected[i];
+                errors[i] += other.errors[i];
+                skipped[i] += other.skipped[i];
+            }
+            if (other.lastError != null) {
+                lastError = other.lastError;
+            }
+        }
+
+        void print(PrintStream out, int threads) {
+            double seconds = elapsedNanos / 1e9;
+            Histogram all = new Histogram();
+            long allErrors = 0;
+            for (int i = 0; i < latencies.length; i++) {
+                all.merge(latencies[i]);
+                allErrors += errors[i];
+            }
+            out.printf("%nthreads=%d  %,.0f ops/s  (%,d ops in %.1f s, %d errors)%n", threads, all.count() / seconds, all.count(), seconds, allErrors);
+            out.printf("  %-9s %10s %10s %9s %9s %9s %9s %9s %7s%n", "op", "count", "ops/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "rejected", "errors");
+            for (Op op : Op.values()) {
+                Histogram h = latencies[op.ordinal()];
+                if (h.count() == 0 && errors[op.ordinal()] == 0) {
+                    continue;
+                }
+                out.printf("  %-9s %,10d %,10.0f %9.2f %9.2f %9.2f %9.2f %,9d %,7d%n", op.name().toLowerCase(), h.count(), h.count() / seconds,
+                        h.percentile(50) / 1e6, h.percentile(99) / 1e6, h.percentile(99.9) / 1e6, h.max() / 1e6,
+                        rejected[op.ordinal()], errors[op.ordinal()]);
+            }
+            if (lastError != null) {
+                out.println("  last error: " + lastError);
+            }
+        }
+    }
+
+    // Log-linear latency histogram: 32 sub-buckets per power of two (about 3% relative error),
+    // constant memory however many samples are recorded. One per thread and operation; merged afterwards.
+    private static final class Histogram {
+        private static final int SUB_BUCKET_BITS = 5;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        private final long[] counts = new long[64 * SUB_BUCKETS];
+        private long count;
+        private long max;
+
+        void record(long nanos) {
+            long value = Math.max(nanos, 1);
+            counts[index(value)]++;
+            count++;
+            max = Math.max(max, value);
+        }
+
+        void merge(Histogram other) {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += other.counts[i];
+            }
+            count += other.count;
+            max = Math.max(max, other.max);
+        }
+
+        long count() { return count; }
+        long max() { return max; }
+
+        // Upper bound of the bucket holding the requested percentile (never above the true maximum)
+        long percentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(count * percentile / 100.0));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(upperBound(i), max);
+                }
+            }
+            return max;
+        }
+
+        private static int index(long value) {
+            int magnitude = 63 - Long.numberOfLeadingZeros(value);
+            if (magnitude < SUB_BUCKET_BITS) {
+                return (int) value; // Small values are exact
+            }
+            int subBucket = (int) (value >>> (magnitude - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+            return (magnitude - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+        }
+
+        private static long upperBound(int index) {
+            if (index < SUB_BUCKETS) {
+                return index;
+            }
+            int magnitude = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+            long subBucket = index % SUB_BUCKETS;
+            long width = 1L << (magnitude - SUB_BUCKET_BITS);
+            return (1L << magnitude) + (subBucket + 1) * width - 1;
+        }
+    }
+
+    // --- Backends ---
+    private static final class InProcessBackend implements Backend {
+        final BankingService service;
+
+        InProcessBackend(BankingService service) {
+            this.service = service;
+        }
+
+        private Session session(String token) {
+            return service.getSession(token);
+        }
+
+        @Override public void register(String username) throws Exception {
+            service.registerUser(username, PASSWORD, username, false);
+        }
+
+        @Override public String login(String username, String password) throws Exception {
+            return service.login(username, password).getToken();
+        }
+
+        @Override public void logout(String token) {
+            service.logout(session(token));
+        }
+
+        @Override public String createAccount(String token) throws Exception {
+            return service.createAccount(session(token), Account.AccountType.CHECKING, INITIAL_BALANCE).getId();
+        }
+
+        @Override public void deposit(String token, String accountId, BigDecimal amount) throws Exception {
+            call(() -> service.deposit(session(token), accountId, amount));
+        }
+
+        @Override public void withdraw(String token, String accountId, BigDecimal amount) throws Exception {
+            call(() -> service.withdraw(session(token), accountId, amount));
+        }
+
+        @Override public void transfer(String token, String fromAccountId, String toAccountId, BigDecimal amount) throws Exception {
+            call(() -> service.transferFunds(session(token), fromAccountId, toAccountId, amount));
+        }
+
+        @Override public String applyForLoan(String token, BigDecimal amount) throws Exception {
+            LoanApplication loan = service.applyForLoan(session(token), amount, "load test", 1 + ThreadLocalRandom.current().nextInt(10));
+            return loan.getId();
+        }
+
+        @Override public void approveLoan(String adminToken, String loanId, String accountId) throws Exception {
+            call(() -> service.approveLoan(session(adminToken), loanId, accountId));
+        }
+
+        @Override public void close() {
+            service.shutdown();
+        }
+
+        @FunctionalInterface
+        private interface Call {
+            void run() throws Exception;
+        }
+
+        private static void call(Call call) throws Exception {
+            try {
+                call.run();
+            } catch (IllegalArgumentException e) {
+                throw new RejectedException(e.getMessage());
+            }
+        }
+    }
+
+    private static final class HttpBackend implements Backend {
+        private final HttpClient client = HttpClient.newHttpClient();
+        private final String baseUrl;
+
+        HttpBackend(String url) {
+            this.baseUrl = (url.endsWith("/") ? url.substring(0, url.length() - 1) : url) + "/api";
+        }
+
+        @Override public void register(String username) throws Exception {
+            post("/users", null, Map.of("username", username, "password", PASSWORD, "fullName", username));
+        }
+
+        @Override public String login(String username, String password) throws Exception {
+            return (String) post("/login", null, Map.of("username", username, "password", password)).get("token");
+        }
+
+        @Override public void logout(String token) throws Exception {
+            post("/logout", token, Map.of());
+        }
+
+        @Override public String createAccount(String token) throws Exception {
+            return (String) post("/accounts", token, Map.of("type", "CHECKING", "initialBalance", INITIAL_BALANCE)).get("id");
+        }
+
+        @Override public void deposit(String token, String accountId, BigDecimal amount) throws Exception {
+            post("/deposit", token, Map.of("accountId", accountId, "amount", amount));
+        }
+
+        @Override public void withdraw(String token, String accountId, BigDecimal amount) throws Exception {
+            post("/withdraw", token, Map.of("accountId", accountId, "amount", amount));
+        }
+
+        @Override public void transfer(String token, String fromAccountId, String toAccountId, BigDecimal amount) throws Exception {
+            post("/transfer", token, Map.of("fromAccountId", fromAccountId, "toAccountId", toAccountId, "amount", amount));
+        }
+
+        @Override public String applyForLoan(String token, BigDecimal amount) throws Exception {
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("amount", amount);
+            body.put("reason", "load test");
+            body.put("priorityScore", 1 + ThreadLocalRandom.current().nextInt(10));
+            return (String) post("/loans", token, body).get("id");
+        }
+
+        @Override public void approveLoan(String adminToken, String loanId, String accountId) throws Exception {
+            post("/loans/" + loanId + "/approve", adminToken, Map.of("accountId", accountId));
+        }
+
+        @Override public void close() {
+        }
+
+        private Map<String, Object> post(String path, String token, Map<String, Object> body) throws Exception {
+            HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(Json.write(body)));
+            if (token != null) {
+                request.header("Authorization", "Bearer " + token);
+            }
+            HttpResponse<String> response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() == 400) {
+                throw new RejectedException(response.body());
+            }
+            if (response.statusCode() >= 300) {
+                throw new IllegalStateException("HTTP " + response.statusCode() + " " + response.body());
+            }
+            return Json.parseObject(response.body());
+        }
+    }
+
+    // --- Arguments ---
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                throw new IllegalArgumentException("Expected --option value pairs, got: " + args[i]);
+            }
+            options.put(args[i].substring(2), args[++i]);
+        }
+        return options;
+    }
+
+    private static int[] parseInts(String list) {
+        String[] parts = list.split(",");
+        int[] values = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            values[i] = Integer.parseInt(parts[i].trim());
+        }
+        return values;
+    }
+
+    // "deposit=30,transfer=70" -> cumulative weights in Op order
+    private static int[] parseMix(String mix) {
+        int[] weights = new int[Op.values().length];
+        for (String part : mix.split(",")) {
+            String[] pair = part.split("=");
+            weights[Op.valueOf(pair[0].trim().toUpperCase()).ordinal()] = Integer.parseInt(pair[1].trim());
+        }
+        for (int i = 1; i < weights.length; i++) {
+            weights[i] += weights[i - 1];
+        }
+        if (weights[weights.length - 1] <= 0) {
+            throw new IllegalArgumentException("The mix needs at least one positive weight.");
+        }
+        return weights;
+    }
+
+    private static String describeMix(int[] cumulative) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < cumulative.length; i++) {
+            int weight = cumulative[i] - (i == 0 ? 0 : cumulative[i - 1]);
+            if (weight > 0) {
+                sb.append(sb.length() == 0 ? "" : ",").append(Op.values()[i].name().toLowerCase()).append('=').append(weight);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -1,10 +1,10 @@
 // --- 5. model/LoanApplication.java ---
 package model;
 
+import util.IdGenerator;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Objects;
-import java.util.UUID;
 
 // The LoanApplication class represents a loan application
 public class LoanApplication {
@@ -12,40 +12,71 @@ public class LoanApplication {
 
     private String id;
     private String userId;
-    private BigDecimal amount;
+    private long amountMinor; // Amount in minor units (cents), see Money
     private LoanStatus status;
-    private LocalDateTime applicationDate;
+    private long applicationDateMillis; // Epoch milliseconds, as stored
+    private LocalDateTime applicationDate; // Converted from applicationDateMillis on first use
     private String reason;
     private int priorityScore; // Lower score = higher priority (e.g., based on credit, urgency)
+    private String leaseOwnerId; // Administrator currently holding the loan for review, or null
+    private long leaseExpiresAtMillis; // Epoch milliseconds the lease runs out; 0 when not leased
 
     // Constructor
-    public LoanApplication(String id, String userId, BigDecimal amount, LoanStatus status, LocalDateTime applicationDate, String reason, int priorityScore) {
+    public LoanApplication(String id, String userId, long amountMinor, LoanStatus status, long applicationDateMillis, String reason, int priorityScore) {
         this.id = id;
         this.userId = userId;
-        this.amount = amount;
+        this.amountMinor = amountMinor;
         this.status = status;
-        this.applicationDate = applicationDate;
+        this.applicationDateMillis = applicationDateMillis;
         this.reason = reason;
         this.priorityScore = priorityScore;
     }
 
+    public LoanApplication(String id, String userId, long amountMinor, LoanStatus status, LocalDateTime applicationDate, String reason, int priorityScore) {
+        this(id, userId, amountMinor, status, Timestamps.toEpochMillis(applicationDate), reason, priorityScore);
+        this.applicationDate = applicationDate;
+    }
+
+    public LoanApplication(String id, String userId, BigDecimal amount, LoanStatus status, LocalDateTime applicationDate, String reason, int priorityScore) {
+        this(id, userId, Money.toMinorUnits(amount), status, applicationDate, reason, priorityScore);
+    }
+
     // Constructor for new applications (ID, date, status are generated)
+    public LoanApplication(String userId, long amountMinor, String reason, int priorityScore) {
+        this(IdGenerator.generateUniqueId(), userId, amountMinor, LoanStatus.PENDING, Timestamps.nowMillis(), reason, priorityScore);
+    }
+
     public LoanApplication(String userId, BigDecimal amount, String reason, int priorityScore) {
-        this(UUID.randomUUID().toString(), userId, amount, LoanStatus.PENDING, LocalDateTime.now(), reason, priorityScore);
+        this(userId, Money.toMinorUnits(amount), reason, priorityScore);
     }
 
     // Getters
     public String getId() { return id; }
     public String getUserId() { return userId; }
-    public BigDecimal getAmount() { return amount; }
+    public BigDecimal getAmount() { return Money.toBigDecimal(amountMinor); } // For display
+    public long getAmountMinor() { return amountMinor; }
     public LoanStatus getStatus() { return status; }
-    public LocalDateTime getApplicationDate() { return applicationDate; }
+    public long getApplicationDateMillis() { return applicationDateMillis; }
+    public LocalDateTime getApplicationDate() { // For display
+        if (applicationDate == null) {
+            applicationDate = Timestamps.toLocalDateTime(applicationDateMillis);
+        }
+        return applicationDate;
+    }
     public String getReason() { return reason; }
     public int getPriorityScore() { return priorityScore; }
+    public String getLeaseOwnerId() { return leaseOwnerId; }
+    public long getLeaseExpiresAtMillis() { return leaseExpiresAtMillis; }
+    public boolean isLeasedAt(long nowMillis) { return leaseOwnerId != null && leaseExpiresAtMillis > nowMillis; }
 
     // Setters (for updating status by admin)
     public void setStatus(LoanStatus status) { this.status = status; }
     public void setPriorityScore(int priorityScore) { this.priorityScore = priorityScore; }
+    public void setLease(String leaseOwnerId, long leaseExpiresAtMillis) {
+        this.leaseOwnerId = leaseOwnerId;
+        this.leaseExpiresAtMillis = leaseExpiresAtMillis;
+    }
+    public void clearLease() { setLease(null, 0); }
 
     @Override
     public boolean equals(Object o) {
@@ -65,9 +96,9 @@ public class LoanApplication {
         return "LoanApplication{" +
                "id='" + id + '\'' +
                ", userId='" + userId + '\'' +
-               ", amount=" + amount +
+               ", amount=" + getAmount() +
                ", status=" + status +
-               ", applicationDate=" + applicationDate +
+               ", applicationDate=" + getApplicationDate() +
                ", reason='" + reason + '\'' +
                ", priorityScore=" + priorityScore +
                '}';
@@ -3,6 +3,7 @@ package gui;
 
 import model.LoanApplication;
 import service.BankingService;
+import util.IdGenerator;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
@@ -40,6 +41,7 @@ public class LoanApplicationPanel extends JPanel {
     private static final Font BUTTON_FONT = new Font("Arial", Font.BOLD, 14);
     private static final Font TITLE_BORDER_FONT = new Font("Arial", Font.BOLD, 16);
     private static final Font TABLE_HEADER_FONT = new Font("Arial", Font.BOLD, 14);
+    private static final int MAX_LOANS_SHOWN = 100; // Most recent applications listed in the table
 
 
     // Constructor
@@ -221,14 +223,14 @@ public class LoanApplicationPanel extends JPanel {
         }
 
         try {
-            List<LoanApplication> loans = bankingService.getLoansByUserId(currentUser.getId());
+            List<LoanApplication> loans = bankingService.getLoansByUserId(currentUser.getId(), MAX_LOANS_SHOWN);
             DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
             if (loans.isEmpty()) {
                 userLoansTableModel.addRow(new Object[]{"", "", "", "No loan applications found.", ""});
             } else {
                 for (LoanApplication loan : loans) {
                     userLoansTableModel.addRow(new Object[]{
-                        loan.getId().substring(0, 8),
+                        IdGenerator.shortId(loan.getId()),
                         String.format("$%.2f", loan.getAmount()),
                         loan.getApplicationDate().format(formatter),
                         loan.getStatus().name(),
@@ -4,7 +4,7 @@ package gui;
 import model.LoanApplication;
 import model.Account;
 import service.BankingService;
-import util.LoanPriorityComparator; // Import the comparator
+import util.IdGenerator;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
@@ -16,10 +16,7 @@ import java.sql.SQLException;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.lang.Runnable; 
-import java.util.HashMap; // Added for accountIdMap
-import java.util.Map; // Added for accountIdMap
-import java.util.stream.Collectors; // Added for filtering accounts
-import java.util.Collections; // Added for sorting
+import java.util.ArrayList;
 
 // LoanApprovalPanel is a JPanel for administrators to view and manage pending loan applications
 public class LoanApprovalPanel extends JPanel {
@@ -36,7 +33,8 @@ public class LoanApprovalPanel extends JPanel {
     private JComboBox<String> recipientAccountCombo;
     private JButton confirmRecipientButton;
     private String selectedLoanUserId; // To store the userId of the loan being approved
-    private Map<String, String> accountIdMap; // Map to store full account IDs
+    private final List<String> recipientAccountIds = new ArrayList<>(); // Full IDs, by recipientAccountCombo index
+    private final List<LoanApplication> displayedLoans = new ArrayList<>(); // The loan shown in each table row
 
     // Define consistent colors and fonts
     private static final Color BG_DARK = new Color(45, 45, 45);
@@ -58,8 +56,6 @@ public class LoanApprovalPanel extends JPanel {
         setBorder(new EmptyBorder(15, 15, 15, 15));
         setBackground(BG_DARK); // Set panel background
 
-        this.accountIdMap = new HashMap<>(); // Initialize the map
-
         initComponents();
         layoutComponents();
         addListeners();
@@ -205,6 +201,7 @@ public class LoanApprovalPanel extends JPanel {
     // Refreshes pending loans
     public void refreshPendingLoans() {
         pendingLoansTableModel.setRowCount(0); // Clear existing data
+        displayedLoans.clear();
 
         if (currentUser == null || !currentUser.isAdmin()) {
             pendingLoansTableModel.addRow(new Object[]{"", "", "", "", "Admin login required.", ""});
@@ -212,19 +209,17 @@ public class LoanApprovalPanel extends JPanel {
         }
 
         try {
-            List<LoanApplication> pendingLoans = bankingService.getPendingLoans();
-            
-            // Sort the loans by priority (using the existing comparator)
-            Collections.sort(pendingLoans, new LoanPriorityComparator());
+            List<LoanApplication> pendingLoans = bankingService.getPendingLoans(); // Already in priority order
 
             DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
             if (pendingLoans.isEmpty()) {
                 pendingLoansTableModel.addRow(new Object[]{"", "", "", "", "No pending loan applications.", ""});
             } else {
                 for (LoanApplication loan : pendingLoans) {
+                    displayedLoans.add(loan);
                     pendingLoansTableModel.addRow(new Object[]{
-                        loan.getId().substring(0, 8),
-                        loan.getUserId().substring(0, 8), // Display truncated User ID
+                        IdGenerator.shortId(loan.getId()),
+                        IdGenerator.shortId(loan.getUserId()), // Display shortened User ID
                         String.format("$%.2f", loan.getAmount()),
                         loan.getApplicationDate().format(formatter),
                         loan.getReason(),
@@ -241,6 +236,11 @@ public class LoanApprovalPanel extends JPanel {
         rejectButton.setEnabled(false);
     }
 
+    // The loan displayed in a table row, or null for a placeholder row
+    private LoanApplication loanAtRow(int row) {
+        return row >= 0 && row < displayedLoans.size() ? displayedLoans.get(row) : null;
+    }
+
     // New method to open recipient account selection dialog
     private void openRecipientAccountSelection() {
         int selectedRow = pendingLoansTable.getSelectedRow();
@@ -249,22 +249,9 @@ public class LoanApprovalPanel extends JPanel {
             return;
         }
 
-        String loanIdDisplay = (String) pendingLoansTableModel.getValueAt(selectedRow, 0);
-        selectedLoanUserId = (String) pendingLoansTableModel.getValueAt(selectedRow, 1); // Get truncated user ID
+        selectedLoanUserId = (String) pendingLoansTableModel.getValueAt(selectedRow, 1); // Get shortened user ID
 
-        LoanApplication selectedLoan = null;
-        try {
-            List<LoanApplication> currentPendingLoans = bankingService.getPendingLoans();
-            for(LoanApplication loan : currentPendingLoans) {
-                if (loan.getId().startsWith(loanIdDisplay)) { // Match by truncated ID
-                    selectedLoan = loan;
-                    break;
-                }
-            }
-        } catch (Exception e) {
-             JOptionPane.showMessageDialog(this, "Error finding loan: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE); 
-             return;
-        }
+        LoanApplication selectedLoan = loanAtRow(selectedRow);
 
         if (selectedLoan == null) {
             JOptionPane.showMessageDialog(this, "Selected loan not found in pending list.", "Error", JOptionPane.ERROR_MESSAGE);
@@ -276,23 +263,20 @@ public class LoanApprovalPanel extends JPanel {
 
         // Populate recipientAccountCombo with accounts belonging to the selected loan's user
         recipientAccountCombo.removeAllItems();
-        accountIdMap.clear();
+        recipientAccountIds.clear();
 
         try {
-            List<Account> allAccounts = bankingService.getAllAccounts();
-            // Filter accounts to show only those belonging to the loan applicant
-            List<Account> userAccountsForLoan = allAccounts.stream()
-                                                    .filter(acc -> acc.getUserId().equals(fullLoanUserId))
-                                                    .collect(Collectors.toList());
+            // Only the loan applicant's accounts (indexed lookup instead of scanning every account)
+            List<Account> userAccountsForLoan = bankingService.getAccountsForUser(fullLoanUserId);
 
             if (userAccountsForLoan.isEmpty()) {
                 recipientAccountCombo.addItem("No accounts found for this user.");
                 confirmRecipientButton.setEnabled(false);
             } else {
                 for (Account acc : userAccountsForLoan) {
-                    String display = acc.getType().name() + " (" + acc.getId().substring(0, 8) + ") - $" + acc.getBalance();
+                    String display = acc.getType().name() + " (" + IdGenerator.shortId(acc.getId()) + ") - $" + acc.getBalance();
                     recipientAccountCombo.addItem(display);
-                    accountIdMap.put(display, acc.getId()); // Store full ID
+                    recipientAccountIds.add(acc.getId()); // Store full ID at the same index
                 }
                 confirmRecipientButton.setEnabled(true);
             }
@@ -315,21 +299,7 @@ public class LoanApprovalPanel extends JPanel {
             return;
         }
 
-        String loanIdDisplay = (String) pendingLoansTableModel.getValueAt(selectedRow, 0); 
-        
-        LoanApplication selectedLoan = null;
-        try {
-            List<LoanApplication> currentPendingLoans = bankingService.getPendingLoans();
-            for(LoanApplication loan : currentPendingLoans) {
-                if (loan.getId().startsWith(loanIdDisplay)) { 
-                    selectedLoan = loan;
-                    break;
-                }
-            }
-        } catch (Exception e) {
-             JOptionPane.showMessageDialog(this, "Error finding loan: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE); 
-             return;
-        }
+        LoanApplication selectedLoan = loanAtRow(selectedRow);
 
         if (selectedLoan == null) {
             JOptionPane.showMessageDialog(this, "Selected loan not found in pending list.", "Error", JOptionPane.ERROR_MESSAGE);
@@ -341,7 +311,8 @@ public class LoanApprovalPanel extends JPanel {
             JOptionPane.showMessageDialog(recipientAccountDialog, "Please select a valid recipient account.", "Selection Error", JOptionPane.WARNING_MESSAGE);
             return;
         }
-        String recipientAccountId = accountIdMap.get(selectedRecipientAccountDisplay);
+        int recipientIndex = recipientAccountCombo.getSelectedIndex();
+        String recipientAccountId = recipientIndex >= 0 && recipientIndex < recipientAccountIds.size() ? recipientAccountIds.get(recipientIndex) : null;
 
         if (recipientAccountId == null) {
             JOptionPane.showMessageDialog(recipientAccountDialog, "Internal error: Could not retrieve full account ID.", "Error", JOptionPane.ERROR_MESSAGE);
@@ -368,20 +339,7 @@ public class LoanApprovalPanel extends JPanel {
         int selectedRow = pendingLoansTable.getSelectedRow();
         if (selectedRow == -1) return;
 
-        String loanId = (String) pendingLoansTableModel.getValueAt(selectedRow, 0); // Get truncated ID
-        LoanApplication selectedLoan = null;
-        try {
-            List<LoanApplication> currentPendingLoans = bankingService.getPendingLoans();
-            for(LoanApplication loan : currentPendingLoans) {
-                if (loan.getId().startsWith(loanId)) { // Match by truncated ID
-                    selectedLoan = loan;
-                    break;
-                }
-            }
-        } catch (Exception e) {
-             JOptionPane.showMessageDialog(this, "Error finding loan: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE); 
-             return;
-        }
+        LoanApplication selectedLoan = loanAtRow(selectedRow);
 
         if (selectedLoan == null) {
             JOptionPane.showMessageDialog(this, "Selected loan not found in pending list.", "Error", JOptionPane.ERROR_MESSAGE);
@@ -389,7 +347,7 @@ public class LoanApprovalPanel extends JPanel {
         }
 
         int response = JOptionPane.showConfirmDialog(this,
-                "Are you sure you want to reject loan " + selectedLoan.getId().substring(0,8) + " for user " + selectedLoan.getUserId().substring(0,8) + "?",
+                "Are you sure you want to reject loan " + IdGenerator.shortId(selectedLoan.getId()) + " for user " + IdGenerator.shortId(selectedLoan.getUserId()) + "?",
                 "Confirm Rejection", JOptionPane.YES_NO_OPTION);
 
         if (response == JOptionPane.YES_OPTION) {
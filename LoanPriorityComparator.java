@@ -11,7 +11,7 @@ public class LoanPriorityComparator implements Comparator<LoanApplication> {
         // If priorityScores are equal, prioritize older applications (smaller applicationDate)
         int scoreComparison = Integer.compare(a1.getPriorityScore(), a2.getPriorityScore());
         if (scoreComparison == 0) {
-            return a1.getApplicationDate().compareTo(a2.getApplicationDate());
+            return Long.compare(a1.getApplicationDateMillis(), a2.getApplicationDateMillis());
         }
         return scoreComparison;
     }
@@ -0,0 +1,194 @@
+// --- 48. service/LoanWorkQueue.java ---
+package service;
+
+import model.LoanApplication;
+import model.Timestamps;
+import util.IndexedLoanHeap;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+// LoanWorkQueue holds every pending loan application, split between the unclaimed queue (an
+// IndexedLoanHeap in approval order) and loans leased to one administrator until a deadline.
+// claim() moves the best n unclaimed loans into leases in one step, so concurrent administrators
+// always get disjoint batches instead of racing for the top of the heap. Expired leases are
+// returned to the queue lazily: every operation first drains the leases ordered by expiry whose
+// deadline has passed, which costs O(log n) per expired lease and nothing otherwise.
+// All methods synchronize on the queue; the lease fields of the loans it holds change only here.
+public class LoanWorkQueue {
+    private final IndexedLoanHeap unclaimed = new IndexedLoanHeap();
+    private final Map<String, LoanApplication> leased = new HashMap<>(); // By loan id
+    private final TreeSet<LoanApplication> leasesByExpiry = new TreeSet<>(
+            Comparator.comparingLong(LoanApplication::getLeaseExpiresAtMillis).thenComparing(LoanApplication::getId));
+
+    // Replaces the contents with the given pending loans; those whose lease is still valid stay leased
+    public synchronized void load(Collection<LoanApplication> pendingLoans, long nowMillis) {
+        unclaimed.clear();
+        leased.clear();
+        leasesByExpiry.clear();
+        for (LoanApplication loan : pendingLoans) {
+            if (loan.isLeasedAt(nowMillis)) {
+                addLease(loan);
+            } else {
+                loan.clearLease();
+                unclaimed.offer(loan);
+            }
+        }
+    }
+
+    public synchronized boolean offer(LoanApplication loan) {
+        return unclaimed.offer(loan);
+    }
+
+    // The best unclaimed loan, or null
+    public synchronized LoanApplication peek(long nowMillis) {
+        expireLeases(nowMillis);
+        return unclaimed.peek();
+    }
+
+    // The first limit unclaimed loans in approval order
+    public synchronized List<LoanApplication> top(int limit, long nowMillis) {
+        expireLeases(nowMillis);
+        return unclaimed.top(limit);
+    }
+
+    public synchronized List<LoanApplication> sorted(long nowMillis) {
+        expireLeases(nowMillis);
+        return unclaimed.sorted();
+    }
+
+    // Leases the best count unclaimed loans to ownerId until expiresAtMillis, best first
+    public synchronized List<LoanApplication> claim(String ownerId, int count, long nowMillis, long expiresAtMillis) {
+        expireLeases(nowMillis);
+        List<LoanApplication> claimed = new ArrayList<>(Math.min(count, unclaimed.size()));
+        while (claimed.size() < count && !unclaimed.isEmpty()) {
+            LoanApplication loan = unclaimed.poll();
+            loan.setLease(ownerId, expiresAtMillis);
+            addLease(loan);
+            claimed.add(loan);
+        }
+        return claimed;
+    }
+
+    // Extends every live lease held by ownerId to expiresAtMillis and returns those loans
+    public synchronized List<LoanApplication> renew(String ownerId, long nowMillis, long expiresAtMillis) {
+        expireLeases(nowMillis);
+        List<LoanApplication> renewed = new ArrayList<>();
+        for (LoanApplication loan : leased.values()) {
+            if (loan.getLeaseOwnerId().equals(ownerId)) {
+                renewed.add(loan);
+            }
+        }
+        for (LoanApplication loan : renewed) {
+            leasesByExpiry.remove(loan); // Re-inserted under its new expiry
+            loan.setLease(ownerId, expiresAtMillis);
+            leasesByExpiry.add(loan);
+        }
+        return renewed;
+    }
+
+    // Returns ownerId's leased loans among loanIds to the unclaimed queue; others are left alone
+    public synchronized List<LoanApplication> release(String ownerId, Collection<String> loanIds, long nowMillis) {
+        expireLeases(nowMillis);
+        List<LoanApplication> released = new ArrayList<>();
+        for (String loanId : loanIds) {
+            LoanApplication loan = leased.get(loanId);
+            if (loan != null && loan.getLeaseOwnerId().equals(ownerId)) {
+                removeLease(loan);
+                loan.clearLease();
+                unclaimed.offer(loan);
+                released.add(loan);
+            }
+        }
+        return released;
+    }
+
+    // The live leases held by ownerId, soonest expiry first
+    public synchronized List<LoanApplication> leasedTo(String ownerId, long nowMillis) {
+        expireLeases(nowMillis);
+        List<LoanApplication> loans = new ArrayList<>();
+        for (LoanApplication loan : leasesByExpiry) {
+            if (loan.getLeaseOwnerId().equals(ownerId)) {
+                loans.add(loan);
+            }
+        }
+        return loans;
+    }
+
+    // Removes a pending loan so that ownerId can decide it; of several concurrent callers only one gets it.
+    // Unclaimed loans are open to any administrator, a leased loan only to its lease holder.
+    // Returns null if the loan is not pending (unknown, or already being decided).
+    public synchronized LoanApplication take(String loanId, String ownerId, long nowMillis) {
+        expireLeases(nowMillis);
+        LoanApplication loan = leased.get(loanId);
+        if (loan == null) {
+            return unclaimed.remove(loanId);
+        }
+        if (!loan.getLeaseOwnerId().equals(ownerId)) {
+            throw new IllegalStateException("Loan application is leased by another administrator until " +
+                                            Timestamps.toLocalDateTime(loan.getLeaseExpiresAtMillis()) + ".");
+        }
+        removeLease(loan); // The lease fields stay set, so restore() can hand the loan back to its holder
+        return loan;
+    }
+
+    // Puts back a loan taken with take() whose decision was not committed
+    public synchronized void restore(LoanApplication loan, long nowMillis) {
+        if (loan.isLeasedAt(nowMillis)) {
+            addLease(loan);
+        } else {
+            loan.clearLease();
+            unclaimed.offer(loan);
+        }
+    }
+
+    // Changes a queued loan's priority score wherever it is and returns it; null if it is not queued
+    public synchronized LoanApplication updatePriority(String loanId, int newPriorityScore) {
+        if (unclaimed.updatePriority(loanId, newPriorityScore)) {
+            return unclaimed.get(loanId);
+        }
+        LoanApplication loan = leased.get(loanId);
+        if (loan != null) {
+            loan.setPriorityScore(newPriorityScore); // Takes effect in the heap if the lease is released or expires
+        }
+        return loan;
+    }
+
+    public synchronized LoanApplication get(String loanId) {
+        LoanApplication loan = unclaimed.get(loanId);
+        return loan != null ? loan : leased.get(loanId);
+    }
+
+    public synchronized int unclaimedCount() {
+        return unclaimed.size();
+    }
+
+    public synchronized int leasedCount() {
+        return leased.size();
+    }
+
+    // --- Lease bookkeeping (caller holds the monitor) ---
+    private void expireLeases(long nowMillis) {
+        while (!leasesByExpiry.isEmpty() && leasesByExpiry.first().getLeaseExpiresAtMillis() <= nowMillis) {
+            LoanApplication loan = leasesByExpiry.pollFirst();
+            leased.remove(loan.getId());
+            loan.clearLease();
+            unclaimed.offer(loan);
+        }
+    }
+
+    private void addLease(LoanApplication loan) {
+        leased.put(loan.getId(), loan);
+        leasesByExpiry.add(loan);
+    }
+
+    private void removeLease(LoanApplication loan) {
+        leasesByExpiry.remove(loan); // Before the map: the TreeSet locates it by its current expiry
+        leased.remove(loan.getId());
+    }
+}
@@ -3,14 +3,23 @@
 package DSA; 
 
 import gui.LoginFrame;
+import server.BankingHttpServer;
 import service.BankingService;
 
 import javax.swing.SwingUtilities; // Used to run GUI operations on the Event Dispatch Thread (EDT)
 import javax.swing.UIManager; // Added for Look and Feel
+import java.io.IOException;
 
 
 public class Main {
-    public static void main(String[] args) {
+    private static final String DB_FILE_PATH = "secure_bank.db";
+
+    // No arguments starts the desktop GUI; "--server [port]" starts the headless HTTP/JSON server instead
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("--server")) {
+            startServer(args.length > 1 ? Integer.parseInt(args[1]) : BankingHttpServer.DEFAULT_PORT);
+            return;
+        }
        
         SwingUtilities.invokeLater(() -> {
             try {
@@ -22,11 +31,21 @@ public class Main {
             }
 
            
-            String dbFilePath = "secure_bank.db";
-            BankingService bankingService = new BankingService(dbFilePath);
+            BankingService bankingService = new BankingService(DB_FILE_PATH);
+            Runtime.getRuntime().addShutdownHook(new Thread(bankingService::shutdown)); // Release pooled connections on exit
             
             LoginFrame loginFrame = new LoginFrame(bankingService);
             loginFrame.setVisible(true);
         });
     }
+
+    private static void startServer(int port) throws IOException {
+        BankingService bankingService = new BankingService(DB_FILE_PATH);
+        BankingHttpServer server = new BankingHttpServer(bankingService, port);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(1); // Let in-flight requests finish, then flush and close the database
+            bankingService.shutdown();
+        }));
+        server.start(); // The server's dispatcher thread keeps the JVM running
+    }
 }
\ No newline at end of file
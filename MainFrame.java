@@ -4,8 +4,10 @@ package gui;
 import model.Account;
 import model.LoanApplication;
 import model.Transaction;
+import model.TransactionPage;
 import model.User;
 import service.BankingService;
+import util.IdGenerator;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
@@ -39,8 +41,13 @@ public class MainFrame extends JFrame {
     // Dashboard components
     private JLabel currentBalanceLabel;
     private JComboBox<String> accountSelector;
+    private final List<String> selectorAccountIds = new ArrayList<>(); // Full IDs, by accountSelector index
     private DefaultListModel<String> transactionHistoryModel;
     private JList<String> transactionHistoryList;
+    private JScrollPane transactionHistoryScrollPane;
+    private String historyAccountId; // Account whose history is shown
+    private TransactionPage.Cursor historyCursor; // Where the next page starts; null when fully loaded
+    private boolean loadingHistoryPage;
     private JButton logoutButton;
 
     // Define consistent colors and fonts
@@ -53,6 +60,8 @@ public class MainFrame extends JFrame {
     private static final Font BUTTON_FONT = new Font("Arial", Font.BOLD, 14);
     private static final Font TITLE_FONT = new Font("Arial", Font.BOLD, 18);
     private static final Font DASHBOARD_BALANCE_FONT = new Font("Arial", Font.BOLD, 16);
+    private static final int HISTORY_PAGE_SIZE = 50;
+    private static final DateTimeFormatter HISTORY_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
 
 
     // Constructor
@@ -160,7 +169,8 @@ public class MainFrame extends JFrame {
         dashboardInfoPanel.add(currentBalanceLabel, gbc);
         
         dashboardPanel.add(dashboardInfoPanel, BorderLayout.NORTH);
-        JScrollPane scrollPane = new JScrollPane(transactionHistoryList);
+        transactionHistoryScrollPane = new JScrollPane(transactionHistoryList);
+        JScrollPane scrollPane = transactionHistoryScrollPane;
         scrollPane.getViewport().setBackground(FIELD_BG); // Important for scroll pane background
         scrollPane.setBorder(BorderFactory.createCompoundBorder(
             BorderFactory.createTitledBorder(BorderFactory.createLineBorder(BORDER_COLOR), "Transaction History",
@@ -197,6 +207,14 @@ public class MainFrame extends JFrame {
         accountSelector.addActionListener(e -> {
             refreshAccountDetails();
         });
+
+        // Fetch the next history page when the user scrolls near the bottom
+        transactionHistoryScrollPane.getVerticalScrollBar().addAdjustmentListener(e -> {
+            JScrollBar bar = transactionHistoryScrollPane.getVerticalScrollBar();
+            if (!e.getValueIsAdjusting() && bar.getValue() + bar.getVisibleAmount() >= bar.getMaximum() - bar.getBlockIncrement()) {
+                loadNextHistoryPage();
+            }
+        });
         
         // Listener for tab changes to refresh relevant panels
         tabbedPane.addChangeListener(e -> {
@@ -247,13 +265,15 @@ public class MainFrame extends JFrame {
     // Populates the account selector
     private void populateAccountSelector() {
         accountSelector.removeAllItems();
+        selectorAccountIds.clear();
         try {
             List<Account> accounts = bankingService.getUserAccounts();
             if (accounts.isEmpty()) {
                 accountSelector.addItem("No accounts available");
             } else {
                 for (Account acc : accounts) {
-                    accountSelector.addItem(acc.getType().name() + " (" + acc.getId().substring(0, 8) + ")");
+                    selectorAccountIds.add(acc.getId()); // Before addItem, which fires the selection listener
+                    accountSelector.addItem(acc.getType().name() + " (" + IdGenerator.shortId(acc.getId()) + ")");
                 }
             }
         } catch (Exception e) {
@@ -265,43 +285,76 @@ public class MainFrame extends JFrame {
     // Refreshes account details
     private void refreshAccountDetails() {
         int selectedIndex = accountSelector.getSelectedIndex();
-        if (selectedIndex == -1 || accountSelector.getSelectedItem().equals("No accounts available") || accountSelector.getSelectedItem().equals("Error loading accounts")) {
+        if (selectedIndex == -1 || selectedIndex >= selectorAccountIds.size()) { // Nothing, or a placeholder item
             currentBalanceLabel.setText("No account selected.");
             transactionHistoryModel.clear();
+            historyAccountId = null;
+            historyCursor = null;
             return;
         }
 
         try {
-            List<Account> userAccounts = bankingService.getUserAccounts();
-            Account selectedAccount = userAccounts.get(selectedIndex); // Assumes order matches
-            
+            Account selectedAccount = bankingService.getAccount(selectorAccountIds.get(selectedIndex)); // Current balance
+            if (selectedAccount == null) {
+                throw new IllegalStateException("Account no longer exists.");
+            }
+
             currentBalanceLabel.setText(String.format("Current Balance: $%.2f (%s)", selectedAccount.getBalance(), selectedAccount.getType().name()));
 
+            // Only the first page is loaded here; later pages arrive as the user scrolls
             transactionHistoryModel.clear();
-            List<Transaction> transactions = bankingService.getAccountTransactions(selectedAccount.getId());
-            if (transactions.isEmpty()) {
+            historyAccountId = selectedAccount.getId();
+            historyCursor = null;
+            TransactionPage page = bankingService.getAccountTransactionsPage(historyAccountId, null, HISTORY_PAGE_SIZE);
+            if (page.getTransactions().isEmpty()) {
                 transactionHistoryModel.addElement("No transactions found for this account.");
             } else {
-                DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-                for (Transaction t : transactions) {
-                    String desc = t.getDescription();
-                    if (t.getType() == Transaction.TransactionType.TRANSFER_OUT && t.getCounterpartyAccountId() != null) {
-                        desc = String.format("Transferred to: %s", t.getCounterpartyAccountId().substring(0,8));
-                    } else if (t.getType() == Transaction.TransactionType.TRANSFER_IN && t.getCounterpartyAccountId() != null) {
-                         desc = String.format("Received from: %s", t.getCounterpartyAccountId().substring(0,8));
-                    }
-                    transactionHistoryModel.addElement(String.format("%s - %s: $%.2f (%s)",
-                                                                     t.getTimestamp().format(formatter),
-                                                                     t.getType().name(),
-                                                                     t.getAmount(),
-                                                                     desc));
-                }
+                appendHistoryPage(page);
             }
         } catch (Exception e) {
             JOptionPane.showMessageDialog(this, "Error refreshing account details: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
             currentBalanceLabel.setText("Error loading details.");
             transactionHistoryModel.clear();
+            historyAccountId = null;
+            historyCursor = null;
+        }
+    }
+
+    // Appends the next page of the selected account's history, if there is one
+    private void loadNextHistoryPage() {
+        if (historyAccountId == null || historyCursor == null || loadingHistoryPage) {
+            return;
+        }
+        loadingHistoryPage = true;
+        try {
+            appendHistoryPage(bankingService.getAccountTransactionsPage(historyAccountId, historyCursor, HISTORY_PAGE_SIZE));
+        } catch (Exception e) {
+            JOptionPane.showMessageDialog(this, "Error loading more transactions: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            historyCursor = null; // Stop retrying on every scroll event
+        } finally {
+            loadingHistoryPage = false;
+        }
+    }
+
+    private void appendHistoryPage(TransactionPage page) {
+        for (Transaction t : page.getTransactions()) {
+            transactionHistoryModel.addElement(formatHistoryEntry(t));
+        }
+        historyCursor = page.getNextCursor();
+    }
+
+    private String formatHistoryEntry(Transaction t) {
+        String desc = t.getDescription();
+        if (t.getType() == Transaction.TransactionType.TRANSFER_OUT && t.getCounterpartyAccountId() != null) {
+            desc = String.format("Transferred to: %s", IdGenerator.shortId(t.getCounterpartyAccountId()));
+        } else if (t.getType() == Transaction.TransactionType.TRANSFER_IN && t.getCounterpartyAccountId() != null) {
+             desc = String.format("Received from: %s", IdGenerator.shortId(t.getCounterpartyAccountId()));
         }
+        return String.format("%s - %s: $%.2f (%s)",
+                             t.getTimestamp().format(HISTORY_FORMATTER),
+                             t.getType().name(),
+                             t.getAmount(),
+                             desc);
     }
     
     // Callback method for panels to trigger a dashboard refresh
@@ -0,0 +1,161 @@
+// --- 45. bench/Microbench.java ---
+package bench;
+
+import util.Json;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+// Microbench is a small JMH-style throughput harness for projects without a build file to pull JMH in.
+// Each benchmark runs warmup iterations, then timed measurement iterations of a fixed wall-clock
+// length, in the calling thread. The score is the mean ops/s over the measurement iterations, and
+// the error is the 99.9% confidence half-width (Student's t), as JMH reports it. Results sinking
+// into consume() keep the JIT from discarding the measured work. writeJson() emits the JMH result
+// layout (benchmark, mode, params, primaryMetric.score/scoreError/rawData), so existing JMH
+// comparison tools can diff two runs.
+public final class Microbench {
+    // The measured operation; its return value is consumed
+    @FunctionalInterface
+    public interface Body {
+        Object run() throws Exception;
+    }
+
+    // Untimed per-invocation setup (JMH's Level.Invocation), e.g. creating the loan an approval consumes
+    @FunctionalInterface
+    public interface Setup<T> {
+        T prepare() throws Exception;
+    }
+
+    @FunctionalInterface
+    public interface Measured<T> {
+        Object run(T state) throws Exception;
+    }
+
+    // Two-sided 99.9% Student's t quantiles for 1..10 degrees of freedom; beyond that ~normal
+    private static final double[] T_999 = { 636.62, 31.599, 12.924, 8.610, 6.869, 5.959, 5.408, 5.041, 4.781, 4.587 };
+
+    private final int warmupIterations;
+    private final int measurementIterations;
+    private final long iterationMillis;
+    private final Pattern filter;
+    private final PrintStream out;
+    private final List<Map<String, Object>> results = new ArrayList<>();
+    private long sink; // Everything consume() sees is folded into this field, so the work cannot be dropped
+
+    public Microbench(int warmupIterations, int measurementIterations, long iterationMillis, String filterRegex, PrintStream out) {
+        if (measurementIterations < 2) {
+            throw new IllegalArgumentException("At least two measurement iterations are needed for an error estimate.");
+        }
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+        this.iterationMillis = iterationMillis;
+        this.filter = filterRegex == null ? null : Pattern.compile(filterRegex);
+        this.out = out;
+    }
+
+    public void run(String name, Map<String, String> params, Body body) throws Exception {
+        run(name, params, () -> null, state -> body.run());
+    }
+
+    public <T> void run(String name, Map<String, String> params, Setup<T> setup, Measured<T> body) throws Exception {
+        String label = params.isEmpty() ? name : name + params;
+        if (filter != null && !filter.matcher(label).find()) {
+            return;
+        }
+        for (int i = 0; i < warmupIterations; i++) {
+            iteration(setup, body);
+        }
+        double[] scores = new double[measurementIterations];
+        for (int i = 0; i < measurementIterations; i++) {
+            scores[i] = iteration(setup, body);
+        }
+
+        double mean = 0;
+        for (double score : scores) {
+            mean += score;
+        }
+        mean /= scores.length;
+        double variance = 0;
+        for (double score : scores) {
+            variance += (score - mean) * (score - mean);
+        }
+        variance /= scores.length - 1;
+        int degreesOfFreedom = scores.length - 1;
+        double t = degreesOfFreedom <= T_999.length ? T_999[degreesOfFreedom - 1] : 3.291;
+        double error = t * Math.sqrt(variance / scores.length);
+
+        out.printf("%-60s %,14.1f +- %,10.1f ops/s  %,10.2f us/op%n", label, mean, error, 1e6 / mean);
+        results.add(toJson(name, params, mean, error, scores));
+    }
+
+    // One timed iteration; returns ops/s over the measured time only (setup excluded)
+    private <T> double iteration(Setup<T> setup, Measured<T> body) throws Exception {
+        long deadline = System.nanoTime() + iterationMillis * 1_000_000L;
+        long measuredNanos = 0;
+        long ops = 0;
+        long now;
+        do {
+            T state = setup.prepare();
+            long start = System.nanoTime();
+            consume(body.run(state));
+            now = System.nanoTime();
+            measuredNanos += now - start;
+            ops++;
+        } while (now < deadline);
+        return ops * 1e9 / measuredNanos;
+    }
+
+    private void consume(Object value) {
+        sink = sink * 31 + (value == null ? 0 : System.identityHashCode(value));
+    }
+
+    private Map<String, Object> toJson(String name, Map<String, String> params, double score, double error, double[] scores) {
+        Map<String, Object> metric = new LinkedHashMap<>();
+        metric.put("score", decimal(score));
+        metric.put("scoreError", decimal(error));
+        metric.put("scoreConfidence", List.of(decimal(score - error), decimal(score + error)));
+        metric.put("scoreUnit", "ops/s");
+        List<Object> raw = new ArrayList<>();
+        for (double s : scores) {
+            raw.add(decimal(s));
+        }
+        metric.put("rawData", List.of(raw)); // One list per fork; this harness runs a single in-process fork
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("benchmark", name);
+        result.put("mode", "thrpt");
+        result.put("threads", 1);
+        result.put("forks", 1);
+        result.put("jvm", System.getProperty("java.home"));
+        result.put("vmVersion", System.getProperty("java.vm.version"));
+        result.put("warmupIterations", warmupIterations);
+        result.put("measurementIterations", measurementIterations);
+        result.put("measurementTime", iterationMillis + " ms");
+        result.put("params", new LinkedHashMap<>(params));
+        result.put("primaryMetric", metric);
+        return result;
+    }
+
+    private static BigDecimal decimal(double value) {
+        return BigDecimal.valueOf(value).setScale(3, RoundingMode.HALF_EVEN);
+    }
+
+    public List<Map<String, Object>> getResults() {
+        return results;
+    }
+
+    public void writeJson(Path path) throws IOException {
+        Files.write(path, Json.write(results).getBytes(StandardCharsets.UTF_8));
+        out.println("Results written to " + path.toAbsolutePath());
+    }
+}
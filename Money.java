@@ -0,0 +1,95 @@
+// --- 31. model/Money.java ---
+package model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+// Money is an exact amount held as a whole number of minor units (cents).
+// Hot paths work on the raw long (see the static helpers) and only convert to
+// BigDecimal when a value is displayed or arrives from the GUI.
+public final class Money implements Comparable<Money> {
+    public static final int SCALE = 2; // Minor units per major unit = 10^SCALE
+    private static final int MAX_INTEGER_DIGITS = 18; // More cannot fit a long of minor units anyway
+    private static final int MAX_INPUT_SCALE = 18; // Trailing zeros such as 1.500 are fine, 10^-9999999 is not
+    public static final Money ZERO = new Money(0);
+
+    private final long minorUnits;
+
+    private Money(long minorUnits) {
+        this.minorUnits = minorUnits;
+    }
+
+    public static Money ofMinor(long minorUnits) {
+        return minorUnits == 0 ? ZERO : new Money(minorUnits);
+    }
+
+    public static Money of(BigDecimal amount) {
+        return ofMinor(toMinorUnits(amount));
+    }
+
+    // Converts an amount such as 12.34 to 1234; rejects fractions of a cent instead of rounding them away.
+    // Magnitude and scale are checked first: setScale on an untrusted value such as 1e9999999 would
+    // materialize millions of digits before longValueExact could reject it.
+    public static long toMinorUnits(BigDecimal amount) {
+        if (amount.precision() - amount.scale() > MAX_INTEGER_DIGITS) {
+            throw new IllegalArgumentException("Amount is too large.");
+        }
+        if (amount.scale() > MAX_INPUT_SCALE) {
+            throw new IllegalArgumentException("Amount must have at most " + SCALE + " decimal places.");
+        }
+        try {
+            return amount.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Amount must have at most " + SCALE + " decimal places: " + amount.toPlainString());
+        }
+    }
+
+    public static BigDecimal toBigDecimal(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    // Overflow-checked arithmetic on raw minor units (no allocation)
+    public static long add(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    public static long subtract(long a, long b) {
+        return Math.subtractExact(a, b);
+    }
+
+    // Getters
+    public long getMinorUnits() { return minorUnits; }
+    public BigDecimal toBigDecimal() { return toBigDecimal(minorUnits); }
+    public boolean isPositive() { return minorUnits > 0; }
+    public boolean isNegative() { return minorUnits < 0; }
+
+    public Money plus(Money other) {
+        return ofMinor(add(minorUnits, other.minorUnits));
+    }
+
+    public Money minus(Money other) {
+        return ofMinor(subtract(minorUnits, other.minorUnits));
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return minorUnits == ((Money) o).minorUnits;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(minorUnits);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
@@ -0,0 +1,127 @@
+// --- 22. db/PooledConnection.java ---
+package db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// PooledConnection is a connection borrowed from a ConnectionPool.
+// Closing it hands the underlying connection back to the pool instead of closing it.
+public class PooledConnection implements AutoCloseable {
+    private final ConnectionPool pool;
+    private final Connection connection;
+    private final int statementCacheSize;
+    // Compiled statements keyed by SQL text, least recently used first
+    private final LinkedHashMap<String, PreparedStatement> statementCache;
+    // Statements handed out while caching is disabled; closed when the connection is returned
+    private final List<PreparedStatement> uncachedStatements = new ArrayList<>();
+    private boolean leased;
+
+    PooledConnection(ConnectionPool pool, Connection connection, int statementCacheSize) {
+        this.pool = pool;
+        this.connection = connection;
+        this.statementCacheSize = statementCacheSize;
+        this.statementCache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() > PooledConnection.this.statementCacheSize) {
+                    closeQuietly(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public Connection getConnection() { return connection; }
+
+    // Returns an uncached statement; the caller must close it
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+        return connection.prepareStatement(sql);
+    }
+
+    // Returns a statement compiled once per connection and reused across borrowers.
+    // The caller must NOT close it (close its ResultSet instead); the pool owns it.
+    public PreparedStatement prepareCached(String sql) throws SQLException {
+        if (statementCacheSize == 0) {
+            PreparedStatement pstmt = connection.prepareStatement(sql);
+            uncachedStatements.add(pstmt);
+            return pstmt;
+        }
+        PreparedStatement pstmt = statementCache.get(sql);
+        if (pstmt == null || pstmt.isClosed()) {
+            pstmt = connection.prepareStatement(sql);
+            statementCache.put(sql, pstmt);
+        }
+        return pstmt;
+    }
+
+    public Statement createStatement() throws SQLException {
+        return connection.createStatement();
+    }
+
+    public int getCachedStatementCount() { return statementCache.size(); }
+
+    void markLeased() { leased = true; }
+
+    // Rolls back anything left open by the borrower so the next one starts clean
+    boolean resetForReuse() {
+        closeUncachedStatements();
+        try {
+            if (connection.isClosed()) {
+                return false;
+            }
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Discarding broken pooled connection: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Retires the connection, closing its cached statements first
+    void closePhysically() {
+        closeUncachedStatements();
+        for (PreparedStatement pstmt : statementCache.values()) {
+            closeQuietly(pstmt);
+        }
+        statementCache.clear();
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing database connection: " + e.getMessage());
+        }
+    }
+
+    private void closeUncachedStatements() {
+        for (PreparedStatement pstmt : uncachedStatements) {
+            closeQuietly(pstmt);
+        }
+        uncachedStatements.clear();
+    }
+
+    private static void closeQuietly(Statement stmt) {
+        try {
+            stmt.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing cached statement: " + e.getMessage());
+        }
+    }
+
+    // Returns the connection to the pool; calling it twice is harmless
+    @Override
+    public void close() {
+        if (leased) {
+            leased = false;
+            pool.release(this);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+// --- 27. db/PragmaProfile.java ---
+package db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// PragmaProfile is a preset of SQLite PRAGMAs applied to every connection the pool opens
+public enum PragmaProfile {
+    // SQLite's own defaults: rollback journal, synchronous=FULL, ~2 MB page cache
+    SQLITE_DEFAULT("DELETE", "FULL", -2_000, 0, "DEFAULT", 3_000),
+    // WAL with a full fsync on every commit; nothing committed is lost on power failure
+    DURABLE("WAL", "FULL", -16_000, 0, "DEFAULT", 5_000),
+    // WAL with fsync only at checkpoints; a power cut may lose the last few commits but never corrupts
+    THROUGHPUT("WAL", "NORMAL", -64_000, 256L * 1024 * 1024, "MEMORY", 5_000);
+
+    private final String journalMode;
+    private final String synchronous;
+    private final int cacheSize;       // Negative = KiB, positive = pages
+    private final long mmapSize;       // Bytes of the file to memory-map, 0 = off
+    private final String tempStore;
+    private final int busyTimeoutMillis;
+
+    PragmaProfile(String journalMode, String synchronous, int cacheSize, long mmapSize, String tempStore, int busyTimeoutMillis) {
+        this.journalMode = journalMode;
+        this.synchronous = synchronous;
+        this.cacheSize = cacheSize;
+        this.mmapSize = mmapSize;
+        this.tempStore = tempStore;
+        this.busyTimeoutMillis = busyTimeoutMillis;
+    }
+
+    // Getters
+    public String getJournalMode() { return journalMode; }
+    public String getSynchronous() { return synchronous; }
+    public int getCacheSize() { return cacheSize; }
+    public long getMmapSize() { return mmapSize; }
+    public String getTempStore() { return tempStore; }
+    public int getBusyTimeoutMillis() { return busyTimeoutMillis; }
+
+    // Applies the profile to a freshly opened connection (must run outside a transaction)
+    public void applyTo(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("PRAGMA busy_timeout = " + busyTimeoutMillis); // First, so the journal switch can wait for locks
+            stmt.execute("PRAGMA journal_mode = " + journalMode);
+            stmt.execute("PRAGMA synchronous = " + synchronous);
+            stmt.execute("PRAGMA cache_size = " + cacheSize);
+            stmt.execute("PRAGMA mmap_size = " + mmapSize);
+            stmt.execute("PRAGMA temp_store = " + tempStore);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+// --- 26. db/QueryPlanCheck.java ---
+package db;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// QueryPlanCheck runs EXPLAIN QUERY PLAN over the hot lookups and fails if any of them
+// falls back to a full table scan or a temporary sort.
+// Usage: java db.QueryPlanCheck [dbFile]   (exit code 1 on a regression)
+// Without dbFile the check runs against a fresh temporary database. A given dbFile is
+// initialized and migrated like any other, so never point it at a live database.
+public class QueryPlanCheck {
+    public static void main(String[] args) throws Exception {
+        File dbFile;
+        if (args.length > 0) {
+            dbFile = new File(args[0]);
+        } else {
+            dbFile = File.createTempFile("query-plan-check", ".db");
+            dbFile.deleteOnExit();
+        }
+        DatabaseManager dbManager = new DatabaseManager(dbFile.getPath());
+        dbManager.initializeDatabase(); // Make sure tables and indexes exist
+
+        List<String> failures = check(dbManager);
+        dbManager.close();
+        if (!failures.isEmpty()) {
+            failures.forEach(System.err::println);
+            System.exit(1);
+        }
+        System.out.println("All hot queries use an index.");
+    }
+
+    // Returns one message per query whose plan scans a table or sorts in a temp b-tree.
+    // A query that reads a whole index by design names that one scan step in expectedScans.
+    public static List<String> check(DatabaseManager dbManager) throws Exception {
+        Map<String, Object[]> hotQueries = new LinkedHashMap<>();
+        hotQueries.put(DatabaseManager.SELECT_USER_BY_USERNAME, new Object[]{"user"});
+        hotQueries.put(DatabaseManager.SELECT_ACCOUNTS_BY_USER, new Object[]{"user"});
+        hotQueries.put(DatabaseManager.SELECT_TRANSACTIONS_BY_ACCOUNT, new Object[]{"account"});
+        hotQueries.put(DatabaseManager.SELECT_TRANSACTION_PAGE_FIRST, new Object[]{"account", 50});
+        hotQueries.put(DatabaseManager.SELECT_TRANSACTION_PAGE_AFTER, new Object[]{"account", 1_704_067_200_000L, "id", 50});
+        hotQueries.put(DatabaseManager.SELECT_LOANS_BY_STATUS, new Object[]{"PENDING"});
+        hotQueries.put(DatabaseManager.SELECT_LOANS_BY_USER, new Object[]{"user", 100});
+        hotQueries.put(DatabaseManager.SELECT_TRANSFER_EDGES, new Object[0]);
+
+        Map<String, String> expectedScans = new HashMap<>();
+        // The transfer graph loads every transfer, but only from the partial covering index
+        expectedScans.put(DatabaseManager.SELECT_TRANSFER_EDGES, "SCAN t USING COVERING INDEX idx_transactions_transfer_out");
+
+        List<String> failures = new ArrayList<>();
+        for (Map.Entry<String, Object[]> query : hotQueries.entrySet()) {
+            List<String> plan = dbManager.explainQueryPlan(query.getKey(), query.getValue());
+            for (String step : plan) {
+                boolean unexpectedScan = step.startsWith("SCAN") && !step.equals(expectedScans.get(query.getKey()));
+                if (unexpectedScan || step.contains("TEMP B-TREE")) {
+                    failures.add("FAIL: " + query.getKey() + "\n      plan: " + plan);
+                    break;
+                }
+            }
+            System.out.println("plan: " + query.getKey() + " -> " + plan);
+        }
+        return failures;
+    }
+}
@@ -0,0 +1,12 @@
+// --- 29. db/RowCallback.java ---
+package db;
+
+import java.sql.SQLException;
+
+// RowCallback receives rows one at a time from a streaming scan in DatabaseManager.
+// The scan holds a pooled connection while it runs, so the callback must not call back
+// into DatabaseManager (with a single connection that would wait forever).
+@FunctionalInterface
+public interface RowCallback<T> {
+    void accept(T row) throws SQLException;
+}
@@ -0,0 +1,44 @@
+// --- 36. service/Session.java ---
+package service;
+
+import model.User;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+
+// Session is one logged-in user of a BankingService. Every user-scoped operation takes the
+// caller's Session, so one service instance can serve many tellers and customers at once.
+// The token is an unguessable handle that remote clients can present instead of the object.
+public final class Session {
+    private static final SecureRandom TOKEN_RANDOM = new SecureRandom();
+    private static final int TOKEN_BYTES = 32;
+
+    private final String token;
+    private final User user;
+    private final long createdAtMillis;
+    private volatile long lastAccessMillis; // BankingService expires the session once this is too old
+
+    Session(User user) {
+        byte[] tokenBytes = new byte[TOKEN_BYTES];
+        TOKEN_RANDOM.nextBytes(tokenBytes);
+        this.token = Base64.getUrlEncoder().withoutPadding().encodeToString(tokenBytes);
+        this.user = user;
+        this.createdAtMillis = System.currentTimeMillis();
+        this.lastAccessMillis = createdAtMillis;
+    }
+
+    // Getters
+    public String getToken() { return token; }
+    public User getUser() { return user; }
+    public String getUserId() { return user.getId(); }
+    public boolean isAdmin() { return user.isAdmin(); }
+    public long getCreatedAtMillis() { return createdAtMillis; }
+    public long getLastAccessMillis() { return lastAccessMillis; }
+
+    void touch() { lastAccessMillis = System.currentTimeMillis(); }
+
+    @Override
+    public String toString() {
+        return "Session{user='" + user.getUsername() + "', admin=" + user.isAdmin() + '}';
+    }
+}
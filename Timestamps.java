@@ -0,0 +1,25 @@
+// --- 32. model/Timestamps.java ---
+package model;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+// Timestamps converts between the stored form (epoch milliseconds) and the LocalDateTime
+// the GUI displays. Models keep the long and only convert when a value is actually shown.
+public final class Timestamps {
+    private Timestamps() {}
+
+    public static long nowMillis() {
+        return System.currentTimeMillis();
+    }
+
+    // Local wall-clock time, matching what LocalDateTime.now() used to record
+    public static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    public static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -1,11 +1,11 @@
 // --- 4. model/Transaction.java ---
 package model;
 
+import util.IdGenerator;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Objects;
-import java.util.UUID;
 
 // The Transaction class represents a financial transaction
 public class Transaction {
@@ -14,34 +14,55 @@ public class Transaction {
     private String id;
     private String accountId; // Account initiating or receiving
     private String counterpartyAccountId; // For transfers
-    private BigDecimal amount;
+    private long amountMinor; // Amount in minor units (cents), see Money
     private TransactionType type;
-    private LocalDateTime timestamp;
+    private long timestampMillis; // Epoch milliseconds, as stored
+    private LocalDateTime timestamp; // Converted from timestampMillis on first use
     private String description;
 
     // Constructor
-    public Transaction(String id, String accountId, String counterpartyAccountId, BigDecimal amount, TransactionType type, LocalDateTime timestamp, String description) {
+    public Transaction(String id, String accountId, String counterpartyAccountId, long amountMinor, TransactionType type, long timestampMillis, String description) {
         this.id = id;
         this.accountId = accountId;
         this.counterpartyAccountId = counterpartyAccountId;
-        this.amount = amount;
+        this.amountMinor = amountMinor;
         this.type = type;
-        this.timestamp = timestamp;
+        this.timestampMillis = timestampMillis;
         this.description = description;
     }
 
+    public Transaction(String id, String accountId, String counterpartyAccountId, long amountMinor, TransactionType type, LocalDateTime timestamp, String description) {
+        this(id, accountId, counterpartyAccountId, amountMinor, type, Timestamps.toEpochMillis(timestamp), description);
+        this.timestamp = timestamp;
+    }
+
+    public Transaction(String id, String accountId, String counterpartyAccountId, BigDecimal amount, TransactionType type, LocalDateTime timestamp, String description) {
+        this(id, accountId, counterpartyAccountId, Money.toMinorUnits(amount), type, timestamp, description);
+    }
+
     // Constructor for new transactions (ID and timestamp are generated)
+    public Transaction(String accountId, String counterpartyAccountId, long amountMinor, TransactionType type, String description) {
+        this(IdGenerator.generateUniqueId(), accountId, counterpartyAccountId, amountMinor, type, Timestamps.nowMillis(), description);
+    }
+
     public Transaction(String accountId, String counterpartyAccountId, BigDecimal amount, TransactionType type, String description) {
-        this(UUID.randomUUID().toString(), accountId, counterpartyAccountId, amount, type, LocalDateTime.now(), description);
+        this(accountId, counterpartyAccountId, Money.toMinorUnits(amount), type, description);
     }
 
     // Getters
     public String getId() { return id; }
     public String getAccountId() { return accountId; }
     public String getCounterpartyAccountId() { return counterpartyAccountId; }
-    public BigDecimal getAmount() { return amount; }
+    public BigDecimal getAmount() { return Money.toBigDecimal(amountMinor); } // For display
+    public long getAmountMinor() { return amountMinor; }
     public TransactionType getType() { return type; }
-    public LocalDateTime getTimestamp() { return timestamp; }
+    public long getTimestampMillis() { return timestampMillis; }
+    public LocalDateTime getTimestamp() { // For display
+        if (timestamp == null) {
+            timestamp = Timestamps.toLocalDateTime(timestampMillis);
+        }
+        return timestamp;
+    }
     public String getDescription() { return description; }
 
     // Setters (for completeness, though transactions are usually immutable)
@@ -68,9 +89,9 @@ public class Transaction {
                "id='" + id + '\'' +
                ", Account='" + accountId + '\'' +
                counterpartyInfo +
-               ", Amount=" + amount +
+               ", Amount=" + getAmount() +
                ", Type=" + type +
-               ", Timestamp=" + timestamp.format(formatter) +
+               ", Timestamp=" + getTimestamp().format(formatter) +
                ", Desc='" + description + '\'' +
                '}';
     }
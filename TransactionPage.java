@@ -0,0 +1,35 @@
+// --- 28. model/TransactionPage.java ---
+package model;
+
+import java.util.List;
+
+// TransactionPage is one page of an account's history, newest first.
+// nextCursor points just past the last row; it is null when there are no more pages.
+public class TransactionPage {
+    // Keyset position in the (timestamp DESC, id DESC) ordering
+    public static class Cursor {
+        private final long timestampMillis;
+        private final String id;
+
+        public Cursor(long timestampMillis, String id) {
+            this.timestampMillis = timestampMillis;
+            this.id = id;
+        }
+
+        public long getTimestampMillis() { return timestampMillis; }
+        public String getId() { return id; }
+    }
+
+    private final List<Transaction> transactions;
+    private final Cursor nextCursor;
+
+    public TransactionPage(List<Transaction> transactions, Cursor nextCursor) {
+        this.transactions = transactions;
+        this.nextCursor = nextCursor;
+    }
+
+    // Getters
+    public List<Transaction> getTransactions() { return transactions; }
+    public Cursor getNextCursor() { return nextCursor; }
+    public boolean hasMore() { return nextCursor != null; }
+}
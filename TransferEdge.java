@@ -0,0 +1,26 @@
+// --- 30. model/TransferEdge.java ---
+package model;
+
+import java.time.LocalDateTime;
+
+// TransferEdge is one sender -> receiver transfer between users, as used by the transaction graph
+public class TransferEdge {
+    private final String senderUserId;
+    private final String receiverUserId;
+    private final long amountMinor;
+    private final long timestampMillis; // Epoch milliseconds
+
+    public TransferEdge(String senderUserId, String receiverUserId, long amountMinor, long timestampMillis) {
+        this.senderUserId = senderUserId;
+        this.receiverUserId = receiverUserId;
+        this.amountMinor = amountMinor;
+        this.timestampMillis = timestampMillis;
+    }
+
+    // Getters
+    public String getSenderUserId() { return senderUserId; }
+    public String getReceiverUserId() { return receiverUserId; }
+    public long getAmountMinor() { return amountMinor; }
+    public long getTimestampMillis() { return timestampMillis; }
+    public LocalDateTime getTimestamp() { return Timestamps.toLocalDateTime(timestampMillis); } // For display
+}
@@ -2,7 +2,10 @@
 package gui;
 
 import model.Account;
+import service.AsyncBankingService;
 import service.BankingService;
+import service.Session;
+import util.IdGenerator;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
@@ -11,13 +14,12 @@ import java.awt.*;
 import java.math.BigDecimal;
 import java.util.List;
 import java.lang.Runnable;
-import java.sql.SQLException; // Added import for SQLException
-import java.util.HashMap; // Added import
-import java.util.Map; // Added import
+import java.util.ArrayList;
 
 // TransferPanel is a JPanel for facilitating fund transfers
 public class TransferPanel extends JPanel {
     private BankingService bankingService;
+    private AsyncBankingService asyncBankingService; // Transfers run off the event dispatch thread
     private Runnable refreshDashboardCallback;
     private model.User currentUser;
 
@@ -27,7 +29,8 @@ public class TransferPanel extends JPanel {
     private JButton transferButton;
 
     // Map to store full account IDs for retrieval from JComboBox selection
-    private Map<String, String> accountIdMap;
+    private final List<String> fromAccountIds = new ArrayList<>(); // Full IDs, by fromAccountCombo index
+    private final List<String> toAccountIds = new ArrayList<>(); // Full IDs, by toAccountCombo index
 
     // Define consistent colors and fonts
     private static final Color BG_DARK = new Color(45, 45, 45);
@@ -43,12 +46,12 @@ public class TransferPanel extends JPanel {
     // Constructor
     public TransferPanel(BankingService bankingService, Runnable refreshDashboardCallback) { // Changed to Runnable
         this.bankingService = bankingService;
+        this.asyncBankingService = new AsyncBankingService(bankingService);
         this.refreshDashboardCallback = refreshDashboardCallback;
         setLayout(new GridBagLayout());
         setBorder(new EmptyBorder(20, 20, 20, 20));
         setBackground(BG_DARK); // Set panel background
 
-        this.accountIdMap = new HashMap<>(); // Initialize the map
 
         initComponents();
         layoutComponents();
@@ -150,7 +153,8 @@ public class TransferPanel extends JPanel {
     public void refreshAccounts() {
         fromAccountCombo.removeAllItems();
         toAccountCombo.removeAllItems(); // Clear toAccountCombo as well
-        accountIdMap.clear(); // Clear the map
+        fromAccountIds.clear();
+        toAccountIds.clear();
 
         if (currentUser == null) {
             fromAccountCombo.addItem("Please log in.");
@@ -167,23 +171,19 @@ public class TransferPanel extends JPanel {
                 transferButton.setEnabled(false);
             } else {
                 for (Account acc : userAccounts) {
-                    String display = acc.getType().name() + " (" + acc.getId().substring(0, 8) + ") - $" + acc.getBalance();
-                    fromAccountCombo.addItem(display);
-                    accountIdMap.put(display, acc.getId()); // Store full ID
+                    fromAccountCombo.addItem(acc.getType().name() + " (" + IdGenerator.shortId(acc.getId()) + ") - $" + acc.getBalance());
+                    fromAccountIds.add(acc.getId()); // Store full ID at the same index
                 }
                 transferButton.setEnabled(true);
             }
 
-            // Populate 'To Account' combo box with ALL accounts
-            List<Account> allAccounts = bankingService.getAllAccounts();
-            if (allAccounts.isEmpty()) {
+            // Populate 'To Account' combo box with ALL accounts, streamed straight from the database
+            bankingService.forEachAccount(acc -> {
+                toAccountCombo.addItem(acc.getType().name() + " (" + IdGenerator.shortId(acc.getId()) + ") - User ID: " + IdGenerator.shortId(acc.getUserId()));
+                toAccountIds.add(acc.getId()); // Store full ID at the same index
+            });
+            if (toAccountCombo.getItemCount() == 0) {
                 toAccountCombo.addItem("No accounts available");
-            } else {
-                for (Account acc : allAccounts) {
-                    String display = acc.getType().name() + " (" + acc.getId().substring(0, 8) + ") - User ID: " + acc.getUserId().substring(0,8);
-                    toAccountCombo.addItem(display);
-                    accountIdMap.put(display, acc.getId()); // Store full ID
-                }
             }
 
         } catch (Exception e) {
@@ -209,12 +209,11 @@ public class TransferPanel extends JPanel {
         }
 
         try {
-            // Retrieve full account IDs using the map
+            // Retrieve full account IDs by combo index (labels are not unique)
+            String fromAccountId = fromSelectedIndex < fromAccountIds.size() ? fromAccountIds.get(fromSelectedIndex) : null;
+            String toAccountId = toSelectedIndex < toAccountIds.size() ? toAccountIds.get(toSelectedIndex) : null;
             String fromAccountDisplay = fromAccountCombo.getSelectedItem().toString();
-            String fromAccountId = accountIdMap.get(fromAccountDisplay);
-
             String toAccountDisplay = toAccountCombo.getSelectedItem().toString();
-            String toAccountId = accountIdMap.get(toAccountDisplay);
 
             if (fromAccountId == null || toAccountId == null) {
                 JOptionPane.showMessageDialog(this, "Could not retrieve full account IDs. Please refresh and try again.", "Internal Error", JOptionPane.ERROR_MESSAGE);
@@ -223,16 +222,25 @@ public class TransferPanel extends JPanel {
 
             BigDecimal amount = new BigDecimal(amountField.getText().trim());
 
-            bankingService.transferFunds(fromAccountId, toAccountId, amount);
-            JOptionPane.showMessageDialog(this, String.format("Successfully transferred $%.2f from %s to %s.", amount, fromAccountDisplay, toAccountDisplay), "Transfer Success", JOptionPane.INFORMATION_MESSAGE);
-            
-            amountField.setText(""); // Clear fields
-            if (refreshDashboardCallback != null) { // Call dashboard refresh to update balance, etc.
-                refreshDashboardCallback.run(); 
-            }
+            Session session = bankingService.getCurrentSession();
+            transferButton.setEnabled(false);
+            asyncBankingService.transferFundsAsync(session, fromAccountId, toAccountId, amount)
+                .whenComplete((ignored, failure) -> SwingUtilities.invokeLater(() -> {
+                    transferButton.setEnabled(true);
+                    if (failure != null) {
+                        JOptionPane.showMessageDialog(this, "Transfer failed: " + AsyncBankingService.unwrap(failure).getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                        return;
+                    }
+                    JOptionPane.showMessageDialog(this, String.format("Successfully transferred $%.2f from %s to %s.", amount, fromAccountDisplay, toAccountDisplay), "Transfer Success", JOptionPane.INFORMATION_MESSAGE);
+
+                    amountField.setText(""); // Clear fields
+                    if (refreshDashboardCallback != null) { // Call dashboard refresh to update balance, etc.
+                        refreshDashboardCallback.run();
+                    }
+                }));
         } catch (NumberFormatException ex) {
             JOptionPane.showMessageDialog(this, "Invalid amount format.", "Input Error", JOptionPane.ERROR_MESSAGE);
-        } catch (IllegalArgumentException | IllegalStateException | SQLException ex) {
+        } catch (IllegalArgumentException | IllegalStateException ex) {
             JOptionPane.showMessageDialog(this, "Transfer failed: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
         } catch (Exception ex) {
              JOptionPane.showMessageDialog(this, "Unexpected error: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
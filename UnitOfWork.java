@@ -0,0 +1,71 @@
+// --- 25. db/UnitOfWork.java ---
+package db;
+
+import model.Account;
+import model.LoanApplication;
+import model.Transaction;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Map;
+
+// UnitOfWork exposes DatabaseManager operations bound to one connection inside one
+// SQLite transaction. Obtain it through DatabaseManager.inTransaction(...); everything
+// done through it is committed together, or rolled back if the work throws.
+public class UnitOfWork {
+    // The body of a unit of work; its return value is handed back to the caller after commit
+    @FunctionalInterface
+    public interface Work<T> {
+        T execute(UnitOfWork uow) throws SQLException;
+    }
+
+    private final DatabaseManager dbManager;
+    private final PooledConnection conn;
+
+    UnitOfWork(DatabaseManager dbManager, PooledConnection conn) {
+        this.dbManager = dbManager;
+        this.conn = conn;
+    }
+
+    public Account getAccountById(String accountId) throws SQLException {
+        return dbManager.getAccountById(conn, accountId);
+    }
+
+    public void addAccount(Account account) throws SQLException {
+        dbManager.addAccount(conn, account);
+    }
+
+    public void addAccounts(Collection<Account> accounts) throws SQLException {
+        dbManager.addAccounts(conn, accounts);
+    }
+
+    // New balance in minor units (cents)
+    public void updateAccountBalance(String accountId, long newBalanceMinor) throws SQLException {
+        dbManager.updateAccountBalance(conn, accountId, newBalanceMinor);
+    }
+
+    // Conditional delta update; false if the account is missing or would be overdrawn
+    public boolean applyBalanceDelta(String accountId, long deltaMinor) throws SQLException {
+        return dbManager.applyBalanceDelta(conn, accountId, deltaMinor);
+    }
+
+    public void updateAccountBalances(Map<String, Long> newBalances) throws SQLException {
+        dbManager.updateAccountBalances(conn, newBalances);
+    }
+
+    public void addTransaction(Transaction transaction) throws SQLException {
+        dbManager.addTransaction(conn, transaction);
+    }
+
+    public void addTransactions(Collection<Transaction> transactions) throws SQLException {
+        dbManager.addTransactions(conn, transactions);
+    }
+
+    public void updateLoanApplicationStatus(String loanId, LoanApplication.LoanStatus newStatus, String adminUserId, long nowMillis) throws SQLException {
+        dbManager.updateLoanApplicationStatus(conn, loanId, newStatus, adminUserId, nowMillis);
+    }
+
+    public void updateLoanLeases(Collection<LoanApplication> loans) throws SQLException {
+        dbManager.updateLoanLeases(conn, loans);
+    }
+}
@@ -1,8 +1,8 @@
 // --- 2. model/User.java ---
 package model;
 
+import util.IdGenerator;
 import java.util.Objects;
-import java.util.UUID;
 
 // The User class represents a bank user
 public class User {
@@ -23,7 +23,7 @@ public class User {
 
     // Constructor for creating a new user (ID is generated internally)
     public User(String username, String passwordHash, String fullName, boolean isAdmin) {
-        this(UUID.randomUUID().toString(), username, passwordHash, fullName, isAdmin);
+        this(IdGenerator.generateUniqueId(), username, passwordHash, fullName, isAdmin);
     }
 
     // Getters
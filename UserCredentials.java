@@ -0,0 +1,19 @@
+// --- 35. model/UserCredentials.java ---
+package model;
+
+// UserCredentials is a user together with the salt needed to verify their password,
+// as loaded by a single login query
+public class UserCredentials {
+    private final User user;
+    private final byte[] salt;
+
+    public UserCredentials(User user, byte[] salt) {
+        this.user = user;
+        this.salt = salt;
+    }
+
+    // Getters
+    public User getUser() { return user; }
+    public String getPasswordHash() { return user.getPasswordHash(); }
+    public byte[] getSalt() { return salt; }
+}
@@ -3,6 +3,8 @@
 module BankingSystem {
     requires java.desktop;
     requires java.sql;     
+    requires jdk.httpserver; // Headless server mode (server.BankingHttpServer)
+    requires java.net.http;  // HTTP client of bench.LoadGenerator
    
    
     exports model;